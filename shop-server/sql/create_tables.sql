@@ -1,6 +1,7 @@
 create table categories (
     id int8 not null,
     name varchar(255) not null,
+    version int8 default 0 not null,
     primary key (id)
 );
 
@@ -22,8 +23,9 @@ create table opening_hours (
 
 create table products (
     id int8 not null,
-    price float4 not null,
+    price_cents int8 not null,
     shop_id int8,
+    version int8 default 0 not null,
     primary key (id)
 );
 
@@ -42,6 +44,9 @@ create table shops (
     created_at date not null,
     in_vacations boolean not null,
     name varchar(255) not null,
+    nb_categories int8 default 0 not null,
+    nb_products int8 default 0 not null,
+    version int8 default 0 not null,
     primary key (id)
 );
 
@@ -0,0 +1,13 @@
+-- Product prices in cents --
+-- To run once on a database created before the price_cents column, before starting the application:
+-- it cannot add the column as not null while products exist, and no longer writes the price column.
+
+alter table products add column if not exists price_cents int8;
+
+update products set price_cents = round(price * 100) where price_cents is null;
+
+alter table products alter column price_cents set not null;
+alter table products drop column price;
+
+create index if not exists idx_product_shop_price_id on products (shop_id, price_cents, id);
+create index if not exists idx_product_price_id on products (price_cents, id);
@@ -0,0 +1,11 @@
+-- Shop counters --
+-- To run once on a database created before the nb_products and nb_categories columns.
+-- The application adds them with a default of 0 and only recomputes them for the shops it writes.
+
+alter table shops add column if not exists nb_categories int8 default 0 not null;
+alter table shops add column if not exists nb_products int8 default 0 not null;
+
+update shops s set
+    nb_products = (select count(*) from products p where p.shop_id = s.id),
+    nb_categories = (select count(distinct pc.category_id) from products_categories pc
+        join products p on p.id = pc.product_id where p.shop_id = s.id);
@@ -0,0 +1,95 @@
+package fr.fullstack.shopapp.benchmark;
+
+import java.lang.reflect.Field;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.fullstack.shopapp.model.Category;
+import fr.fullstack.shopapp.model.LocalizedProduct;
+import fr.fullstack.shopapp.model.OpeningHoursShop;
+import fr.fullstack.shopapp.model.Product;
+import fr.fullstack.shopapp.model.Shop;
+
+/**
+ * In-memory entities shared by the benchmarks, shaped like the fill_tables.sql data.
+ */
+public class Fixtures {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    /**
+     * Non-overlapping slots spread over the 7 days, the worst case of the overlap validation.
+     */
+    public static List<OpeningHoursShop> openingHours(int size) {
+        int slotsPerDay = (size + 6) / 7;
+        int slotLength = MINUTES_PER_DAY / slotsPerDay;
+        List<OpeningHoursShop> openingHours = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int start = (i / 7) * slotLength;
+            OpeningHoursShop slot = new OpeningHoursShop();
+            slot.setId(i);
+            slot.setDay(i % 7 + 1);
+            slot.setOpenAt(LocalTime.MIN.plusMinutes(start));
+            slot.setCloseAt(LocalTime.MIN.plusMinutes(start + slotLength - 2));
+            openingHours.add(slot);
+        }
+        return openingHours;
+    }
+
+    public static List<Product> products(int size, Shop shop) {
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Product product = new Product();
+            product.setId(i);
+            product.setPriceCents(1000 + i);
+            product.setShop(shop);
+            product.setLocalizedProducts(List.of(
+                    localizedProduct(2L * i, "FR", "Produit " + i),
+                    localizedProduct(2L * i + 1, "EN", "Product " + i)));
+            product.setCategories(List.of(category(i % 10), category(i % 10 + 10)));
+            products.add(product);
+        }
+        return products;
+    }
+
+    public static Shop shop(long id) {
+        Shop shop = new Shop();
+        shop.setId(id);
+        shop.setName("Boutique " + id);
+        shop.setInVacations(id % 2 == 0);
+        shop.setOpeningHours(openingHours(7));
+        try {
+            Field createdAt = Shop.class.getDeclaredField("createdAt");
+            createdAt.setAccessible(true);
+            createdAt.set(shop, LocalDate.of(2022, 1, 1).plusDays(id));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+        return shop;
+    }
+
+    public static List<Shop> shops(int size) {
+        List<Shop> shops = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            shops.add(shop(i));
+        }
+        return shops;
+    }
+
+    private static Category category(long id) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName("Catégorie " + id);
+        return category;
+    }
+
+    private static LocalizedProduct localizedProduct(long id, String locale, String name) {
+        LocalizedProduct localizedProduct = new LocalizedProduct();
+        localizedProduct.setId(id);
+        localizedProduct.setLocale(locale);
+        localizedProduct.setName(name);
+        localizedProduct.setDescription("Description de " + name);
+        return localizedProduct;
+    }
+}
@@ -0,0 +1,44 @@
+package fr.fullstack.shopapp.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.fullstack.shopapp.model.OpeningHoursShop;
+import fr.fullstack.shopapp.validation.OpeningHoursShopValidator;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OpeningHoursShopValidatorBenchmark {
+    @Param({ "7", "28", "112", "448" })
+    private int size;
+
+    private List<OpeningHoursShop> openingHours;
+
+    private final OpeningHoursShopValidator validator = new OpeningHoursShopValidator();
+
+    @Setup
+    public void setup() {
+        openingHours = Fixtures.openingHours(size);
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return validator.isValid(openingHours, null);
+    }
+}
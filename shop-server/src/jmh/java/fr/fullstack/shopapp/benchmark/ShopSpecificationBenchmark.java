@@ -0,0 +1,88 @@
+package fr.fullstack.shopapp.benchmark;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.fullstack.shopapp.model.Category;
+import fr.fullstack.shopapp.model.LocalizedProduct;
+import fr.fullstack.shopapp.model.OpeningHoursShop;
+import fr.fullstack.shopapp.model.Product;
+import fr.fullstack.shopapp.model.Shop;
+import fr.fullstack.shopapp.repository.ShopSpecifications;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Builds the criteria predicate of the shop list filters, as ShopService.getShopList does for
+ * every request. The session factory is built without any database or search backend.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ShopSpecificationBenchmark {
+    @Param({ "none", "inVacations", "all" })
+    private String filters;
+
+    private CriteriaBuilder cb;
+
+    private Optional<String> createdAfter;
+
+    private Optional<String> createdBefore;
+
+    private Optional<Boolean> inVacations;
+
+    private SessionFactory sessionFactory;
+
+    @Setup
+    public void setup() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Category.class)
+                .addAnnotatedClass(LocalizedProduct.class)
+                .addAnnotatedClass(OpeningHoursShop.class)
+                .addAnnotatedClass(Product.class)
+                .addAnnotatedClass(Shop.class)
+                .setProperty("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect")
+                .setProperty("hibernate.boot.allow_jdbc_metadata_access", "false")
+                .setProperty("hibernate.search.enabled", "false")
+                .setProperty("jakarta.persistence.validation.mode", "none")
+                .buildSessionFactory();
+        cb = sessionFactory.getCriteriaBuilder();
+
+        inVacations = filters.equals("none") ? Optional.empty() : Optional.of(false);
+        createdBefore = filters.equals("all") ? Optional.of("2023-01-01") : Optional.empty();
+        createdAfter = filters.equals("all") ? Optional.of("2020-01-01") : Optional.empty();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Predicate toPredicate() {
+        CriteriaQuery<Shop> query = cb.createQuery(Shop.class);
+        Root<Shop> root = query.from(Shop.class);
+        return ShopSpecifications.withFilters(inVacations, createdBefore, createdAfter)
+                .toPredicate(root, query, cb);
+    }
+}
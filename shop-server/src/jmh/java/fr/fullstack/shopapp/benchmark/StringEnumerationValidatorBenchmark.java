@@ -0,0 +1,50 @@
+package fr.fullstack.shopapp.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.fullstack.shopapp.model.LocalizedProduct;
+import fr.fullstack.shopapp.validation.StringEnumeration;
+import fr.fullstack.shopapp.validation.StringEnumerationValidator;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StringEnumerationValidatorBenchmark {
+    private final StringEnumerationValidator validator = new StringEnumerationValidator();
+
+    @Setup
+    public void setup() throws NoSuchFieldException {
+        // Same constraint as LocalizedProduct.locale
+        validator.initialize(LocalizedProduct.class.getDeclaredField("locale").getAnnotation(StringEnumeration.class));
+    }
+
+    @Benchmark
+    public void initialize() throws NoSuchFieldException {
+        new StringEnumerationValidator().initialize(
+                LocalizedProduct.class.getDeclaredField("locale").getAnnotation(StringEnumeration.class));
+    }
+
+    @Benchmark
+    public boolean isValidKnownValue() {
+        return validator.isValid("EN", null);
+    }
+
+    @Benchmark
+    public boolean isValidUnknownValue() {
+        return validator.isValid("DE", null);
+    }
+}
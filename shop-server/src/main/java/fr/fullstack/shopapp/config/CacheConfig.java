@@ -0,0 +1,57 @@
+package fr.fullstack.shopapp.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import fr.fullstack.shopapp.service.CacheService;
+
+// Entity caches and their size/TTL policy are declared with spring.cache.* in application.properties,
+// the response cache is bounded by the size of the cached bodies instead
+@Configuration
+@EnableCaching
+public class CacheConfig implements CachingConfigurer {
+    public static final String CATEGORIES = "categories";
+
+    public static final String CATEGORY_PAGES = "categoryPages";
+
+    public static final String PRODUCTS = "products";
+
+    public static final String RESPONSE_PAGES = "responsePages";
+
+    public static final String SHOPS = "shops";
+
+    @Autowired
+    private ObjectProvider<CacheManager> cacheManager;
+
+    @Autowired
+    private ObjectProvider<CacheService> cacheService;
+
+    @Override
+    public CacheResolver cacheResolver() {
+        return new GuardedCacheResolver(cacheManager, cacheService);
+    }
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> responsePagesCustomizer(
+            @Value("${response-cache.max-bytes}") long maxBytes) {
+        return cacheManager -> cacheManager.registerCustomCache(RESPONSE_PAGES, Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Object key, Object value) -> ((ResponseCacheFilter.CachedResponse) value).getWeight())
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .recordStats()
+                .build());
+    }
+}
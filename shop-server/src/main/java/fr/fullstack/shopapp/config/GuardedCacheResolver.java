@@ -0,0 +1,99 @@
+package fr.fullstack.shopapp.config;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheResolver;
+
+import fr.fullstack.shopapp.service.CacheService;
+
+/**
+ * Resolves the caches of the @Cacheable(sync = true) lookups to caches that only keep a loaded
+ * value when no invalidation ran during the load. A lookup may read the row before a write is
+ * committed and store it after the eviction that follows the commit, the stale value would
+ * otherwise stay cached until it expires.
+ */
+public class GuardedCacheResolver implements CacheResolver {
+    private final ObjectProvider<CacheManager> cacheManager;
+
+    private final ObjectProvider<CacheService> cacheService;
+
+    public GuardedCacheResolver(ObjectProvider<CacheManager> cacheManager, ObjectProvider<CacheService> cacheService) {
+        this.cacheManager = cacheManager;
+        this.cacheService = cacheService;
+    }
+
+    @Override
+    public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+        return context.getOperation().getCacheNames().stream()
+                .map(name -> new GuardedCache(cacheManager.getObject().getCache(name), cacheService.getObject()))
+                .toList();
+    }
+
+    private static class GuardedCache implements Cache {
+        private final Cache cache;
+
+        private final CacheService cacheService;
+
+        private GuardedCache(Cache cache, CacheService cacheService) {
+            this.cache = cache;
+            this.cacheService = cacheService;
+        }
+
+        @Override
+        public void clear() {
+            cache.clear();
+        }
+
+        @Override
+        public void evict(Object key) {
+            cache.evict(key);
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            return cache.get(key);
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            return cache.get(key, type);
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            // The target cache loads atomically, concurrent lookups of the key wait for this load
+            AtomicLong generation = new AtomicLong(-1);
+            T value = cache.get(key, () -> {
+                // Read before the load, see CacheService.putIfCurrent
+                generation.set(cacheService.getGeneration(getName()));
+                return valueLoader.call();
+            });
+            // Only the lookup that ran the load checks it, the other ones got the value from the cache
+            if (generation.get() != -1 && cacheService.getGeneration(getName()) != generation.get()) {
+                cache.evict(key);
+            }
+            return value;
+        }
+
+        @Override
+        public String getName() {
+            return cache.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return cache.getNativeCache();
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            cache.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package fr.fullstack.shopapp.config;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Logs the duration of slow requests and of a sample of the other ones as key=value pairs.
+ * Latency distributions are published by the http.server.requests metric, the log only keeps
+ * examples to look at.
+ */
+@Component
+public class RequestTimingFilter extends OncePerRequestFilter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestTimingFilter.class);
+
+    @Value("${logging.request-timing.sample-rate}")
+    private double sampleRate;
+
+    @Value("${logging.request-timing.slow-threshold-ms}")
+    private long slowThresholdMs;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            boolean slow = durationMs >= slowThresholdMs;
+            if (slow || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                LOGGER.info("method={} uri={} query={} status={} durationMs={} slow={}",
+                        request.getMethod(), request.getRequestURI(), request.getQueryString(),
+                        response.getStatus(), durationMs, slow);
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package fr.fullstack.shopapp.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import fr.fullstack.shopapp.service.CacheService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Serves the first pages of the category, shop and per shop product lists from their serialized
+ * bytes, without running the query nor Jackson. Pages are keyed by the path and the sorted query
+ * parameters, and are evicted by CacheService when the services write the entities they show.
+ * Only the lists read from the database are cached, search results follow the index asynchronously.
+ */
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    private static final Map<String, Set<String>> CACHEABLE_PARAMETERS = Map.of(
+            "/api/v1/categories", Set.of("page", "size", "sort"),
+            "/api/v1/shops", Set.of("page", "size", "sort", "sortBy", "inVacations", "createdAfter", "createdBefore"),
+            "/api/v1/products", Set.of("page", "size", "sort", "shopId", "categoryId", "locale",
+                    "minPrice", "maxPrice", "sortBy", "categoryIds", "match"));
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Value("${response-cache.max-page}")
+    private int maxPage;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = getKey(request);
+        if (key == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        CachedResponse cached = cacheService.getResponsePage(key);
+        if (cached != null) {
+            write(cached, request, response);
+            return;
+        }
+
+        long generation = cacheService.getResponsePagesGeneration();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        if (wrapper.getStatus() == HttpStatus.OK.value() && wrapper.getContentType() != null
+                && MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(wrapper.getContentType()))) {
+            cacheService.putResponsePage(key, new CachedResponse(wrapper.getContentType(),
+                    wrapper.getContentAsByteArray()), generation);
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    /**
+     * Returns the cache key of the request, or null when it is not one of the cached pages.
+     */
+    private String getKey(HttpServletRequest request) {
+        if (maxPage <= 0 || !"GET".equals(request.getMethod())) {
+            return null;
+        }
+        String path = request.getRequestURI();
+        Set<String> cacheableParameters = CACHEABLE_PARAMETERS.get(path);
+        Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+        if (cacheableParameters == null || !cacheableParameters.containsAll(parameters.keySet())) {
+            return null;
+        }
+
+        try {
+            String[] page = parameters.get("page");
+            if (page != null && Integer.parseInt(page[0]) >= maxPage) {
+                return null;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        String resource = path.substring(path.lastIndexOf('/') + 1);
+        if (resource.equals("products")) {
+            // Only the products of a shop, their pages are evicted with the shop
+            String[] shopId = parameters.get("shopId");
+            if (shopId == null) {
+                return null;
+            }
+            resource += "/" + shopId[0];
+        }
+
+        StringJoiner query = new StringJoiner("&", resource + "?", "");
+        parameters.forEach((name, values) -> {
+            for (String value : values) {
+                query.add(name + "=" + URLEncoder.encode(value, StandardCharsets.UTF_8));
+            }
+        });
+        return query.toString();
+    }
+
+    private void write(CachedResponse cached, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        byte[] body = cached.getBody();
+        if (cached.getGzipBody() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = cached.getGzipBody();
+        }
+        response.setContentType(cached.getContentType());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    public static class CachedResponse {
+        private final byte[] body;
+
+        private final String contentType;
+
+        private final byte[] gzipBody;
+
+        public CachedResponse(String contentType, byte[] body) throws IOException {
+            this.contentType = contentType;
+            this.body = body;
+            this.gzipBody = body.length >= GZIP_MIN_BYTES ? gzip(body) : null;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public byte[] getGzipBody() {
+            return gzipBody;
+        }
+
+        public int getWeight() {
+            return body.length + (gzipBody != null ? gzipBody.length : 0);
+        }
+
+        private static byte[] gzip(byte[] body) throws IOException {
+            ByteArrayOutputStream output = new ByteArrayOutputStream(body.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+                gzip.write(body);
+            }
+            return output.toByteArray();
+        }
+    }
+}
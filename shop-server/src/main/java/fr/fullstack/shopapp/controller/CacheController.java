@@ -0,0 +1,24 @@
+package fr.fullstack.shopapp.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import fr.fullstack.shopapp.service.CacheService;
+
+@RestController
+@RequestMapping("/api/v1/caches")
+public class CacheController {
+
+    @Autowired
+    private CacheService service;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Map<String, Long>>> getCacheStatistics() {
+        return ResponseEntity.ok(service.getStatistics());
+    }
+}
@@ -1,8 +1,12 @@
 package fr.fullstack.shopapp.controller;
 
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.Errors;
@@ -12,13 +16,19 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import fr.fullstack.shopapp.dto.BatchResult;
+import fr.fullstack.shopapp.exception.VersionConflictException;
 import fr.fullstack.shopapp.model.Category;
 import fr.fullstack.shopapp.service.CategoryService;
 import fr.fullstack.shopapp.util.ErrorValidation;
+import fr.fullstack.shopapp.util.Etags;
 import jakarta.validation.Valid;
 
 @RestController
@@ -57,24 +67,44 @@ public class CategoryController {
         return ResponseEntity.ok(service.getCategoryList(pageable));
     }
 
+    @GetMapping(params = "ids")
+    public ResponseEntity<BatchResult<Category>> getCategoriesByIds(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(service.getCategoriesByIds(ids));
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Category> getCategoryById(@PathVariable long id) {
+    public ResponseEntity<Category> getCategoryById(@PathVariable long id, WebRequest request) {
         try {
-            return ResponseEntity.ok().body(service.getCategoryById(id));
+            // Only the version is read when the client copy is still current
+            String etag = service.getCategoryEtag(id);
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            return ResponseEntity.ok().eTag(etag).body(service.getCategoryById(id));
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
     }
 
     @PutMapping
-    public ResponseEntity<Category> updateCategory(@Valid @RequestBody Category category, Errors errors) {
+    public ResponseEntity<Category> updateCategory(
+            @Valid @RequestBody Category category,
+            Errors errors,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) Optional<String> ifMatch) {
         if (errors.hasErrors()) {
             throw new ResponseStatusException(
                     HttpStatus.BAD_REQUEST, ErrorValidation.getErrorValidationMessage(errors));
         }
 
         try {
-            return ResponseEntity.ok().body(service.updateCategory(category));
+            Category updatedCategory = service.updateCategory(category, Etags.parseIfMatch(ifMatch));
+            return ResponseEntity.ok().eTag(service.getCategoryEtag(updatedCategory.getId())).body(updatedCategory);
+        } catch (VersionConflictException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, e.getMessage());
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
@@ -1,27 +1,47 @@
 package fr.fullstack.shopapp.controller;
 
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.Errors;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
+import fr.fullstack.shopapp.dto.BatchResult;
+import fr.fullstack.shopapp.dto.CursorPage;
+import fr.fullstack.shopapp.dto.ImportReport;
+import fr.fullstack.shopapp.dto.ProductView;
+import fr.fullstack.shopapp.dto.Suggestion;
+import fr.fullstack.shopapp.exception.VersionConflictException;
 import fr.fullstack.shopapp.model.Product;
 import fr.fullstack.shopapp.service.ProductService;
 import fr.fullstack.shopapp.util.ErrorValidation;
+import fr.fullstack.shopapp.util.Etags;
+import fr.fullstack.shopapp.util.MergePatch;
+import fr.fullstack.shopapp.util.QueryModes;
 import jakarta.validation.Valid;
 
 @RestController
@@ -55,10 +75,46 @@ public class ProductController {
         }
     }
 
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(output -> service.exportProducts(output));
+    }
+
+    @GetMapping(params = { "ids", "!q", "!after", "!categoryIds", "!locale" })
+    public ResponseEntity<BatchResult<Product>> getProductsByIds(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(service.getProductsByIds(ids));
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable long id) {
+    public ResponseEntity<Product> getProductById(@PathVariable long id, WebRequest request) {
+        try {
+            // Only the version is read when the client copy is still current
+            String etag = service.getProductEtag(id);
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            return ResponseEntity.ok().eTag(etag).body(service.getProductById(id));
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping(value = "/{id}", params = "locale")
+    public ResponseEntity<ProductView> getLocalizedProductById(
+            @PathVariable long id, @RequestParam String locale, WebRequest request) {
         try {
-            return ResponseEntity.ok().body(service.getProductById(id));
+            // The representation depends on the translations, which are part of the product version
+            String etag = service.getProductEtag(id);
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            return ResponseEntity.ok().eTag(etag).body(service.getProductViewById(id, locale));
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
@@ -68,20 +124,129 @@ public class ProductController {
     public ResponseEntity<Page<Product>> getProductsOfShop(
             Pageable pageable,
             @RequestParam(required = false) Optional<Long> shopId,
-            Optional<Long> categoryId) {
-        return ResponseEntity.ok(
-                service.getShopProductList(shopId, categoryId, pageable));
+            @RequestParam(required = false) Optional<Long> categoryId,
+            @RequestParam(required = false) Optional<BigDecimal> minPrice,
+            @RequestParam(required = false) Optional<BigDecimal> maxPrice,
+            @RequestParam(required = false) Optional<String> sortBy,
+            WebRequest request) {
+        try {
+            QueryModes.checkNotCombined(request, "ids", "q", "after", "categoryIds", "locale");
+            return ResponseEntity.ok(
+                    service.getShopProductList(shopId, categoryId, minPrice, maxPrice, sortBy, pageable));
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping(params = { "locale", "!q", "!after", "!ids", "!categoryIds" })
+    public ResponseEntity<Page<ProductView>> getLocalizedProductsOfShop(
+            Pageable pageable,
+            @RequestParam String locale,
+            @RequestParam(required = false) Optional<Long> shopId,
+            @RequestParam(required = false) Optional<Long> categoryId,
+            @RequestParam(required = false) Optional<BigDecimal> minPrice,
+            @RequestParam(required = false) Optional<BigDecimal> maxPrice,
+            @RequestParam(required = false) Optional<String> sortBy) {
+        try {
+            return ResponseEntity.ok(service.getShopProductViewList(
+                    shopId, categoryId, minPrice, maxPrice, sortBy, locale, pageable));
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping(params = { "categoryIds", "!q", "!after", "!ids", "!locale" })
+    public ResponseEntity<Page<Product>> getProductsOfShopByCategories(
+            Pageable pageable,
+            @RequestParam List<Long> categoryIds,
+            @RequestParam(defaultValue = "all") String match,
+            @RequestParam(required = false) Optional<Long> shopId) {
+        try {
+            return ResponseEntity.ok(service.getShopProductListByCategories(shopId, categoryIds, match, pageable));
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping(params = { "after", "!q", "!categoryIds", "!ids", "!locale" })
+    public ResponseEntity<CursorPage<Product>> getProductsOfShopAfter(
+            Pageable pageable,
+            @RequestParam String after,
+            @RequestParam(required = false) Optional<Long> shopId,
+            @RequestParam(required = false) Optional<Long> categoryId,
+            @RequestParam(required = false) Optional<BigDecimal> minPrice,
+            @RequestParam(required = false) Optional<BigDecimal> maxPrice,
+            @RequestParam(required = false) Optional<String> sortBy) {
+        try {
+            return ResponseEntity.ok(service.getShopProductListAfter(
+                    shopId, categoryId, minPrice, maxPrice, sortBy, after, pageable.getPageSize()));
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping(params = { "q", "!after", "!ids", "!categoryIds" })
+    public ResponseEntity<Page<Product>> searchProducts(
+            Pageable pageable,
+            @RequestParam String q,
+            @RequestParam(required = false) Optional<String> locale,
+            @RequestParam(required = false) Optional<Long> shopId,
+            @RequestParam(required = false) Optional<Long> categoryId,
+            @RequestParam(defaultValue = "false") boolean facets) {
+        try {
+            return ResponseEntity.ok(service.searchProducts(q, locale, shopId, categoryId, facets, pageable));
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @PostMapping(value = "/import", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<ImportReport> importProducts(InputStream body) {
+        return ResponseEntity.ok(service.importProducts(body));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Suggestion>> suggestProducts(
+            @RequestParam String q,
+            @RequestParam(required = false) Optional<String> locale,
+            @RequestParam(defaultValue = "10") int size) {
+        try {
+            return ResponseEntity.ok(service.suggestProducts(q, locale, size));
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @PatchMapping(value = "/{id}", consumes = { MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<Product> patchProduct(
+            @PathVariable long id,
+            @RequestBody JsonNode patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) Optional<String> ifMatch) {
+        try {
+            Product patchedProduct = service.patchProduct(id, patch, Etags.parseIfMatch(ifMatch));
+            return ResponseEntity.ok().eTag(service.getProductEtag(id)).body(patchedProduct);
+        } catch (VersionConflictException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, e.getMessage());
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     @PutMapping
-    public ResponseEntity<Product> updateProduct(@Valid @RequestBody Product product, Errors errors) {
+    public ResponseEntity<Product> updateProduct(
+            @Valid @RequestBody Product product,
+            Errors errors,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) Optional<String> ifMatch) {
         if (errors.hasErrors()) {
             throw new ResponseStatusException(
                     HttpStatus.BAD_REQUEST, ErrorValidation.getErrorValidationMessage(errors));
         }
 
         try {
-            return ResponseEntity.ok().body(service.updateProduct(product));
+            Product updatedProduct = service.updateProduct(product, Etags.parseIfMatch(ifMatch));
+            return ResponseEntity.ok().eTag(service.getProductEtag(updatedProduct.getId())).body(updatedProduct);
+        } catch (VersionConflictException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, e.getMessage());
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
@@ -0,0 +1,46 @@
+package fr.fullstack.shopapp.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import fr.fullstack.shopapp.service.ElasticSearchService;
+import fr.fullstack.shopapp.service.ReindexService;
+
+@RestController
+@RequestMapping("/api/v1/search")
+public class SearchController {
+
+    @Autowired
+    private ElasticSearchService service;
+
+    @Autowired
+    private ReindexService reindexService;
+
+    @GetMapping("/indexing")
+    public ResponseEntity<Map<String, Long>> getIndexingLag() {
+        return ResponseEntity.ok(service.getIndexingLag());
+    }
+
+    @GetMapping("/reindex")
+    public ResponseEntity<Map<String, Object>> getReindexProgress() {
+        return ResponseEntity.ok(reindexService.getProgress());
+    }
+
+    @PostMapping("/reindex")
+    public ResponseEntity<Map<String, Object>> startReindex() {
+        try {
+            reindexService.startReindex(reindexService.getIndexes());
+            return ResponseEntity.accepted().body(reindexService.getProgress());
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
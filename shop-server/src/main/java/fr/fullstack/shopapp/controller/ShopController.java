@@ -1,27 +1,46 @@
 package fr.fullstack.shopapp.controller;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.Errors;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
+import fr.fullstack.shopapp.dto.BatchResult;
+import fr.fullstack.shopapp.dto.CursorPage;
+import fr.fullstack.shopapp.dto.Suggestion;
+import fr.fullstack.shopapp.exception.VersionConflictException;
 import fr.fullstack.shopapp.model.Shop;
 import fr.fullstack.shopapp.service.ShopService;
 import fr.fullstack.shopapp.util.ErrorValidation;
+import fr.fullstack.shopapp.util.Etags;
+import fr.fullstack.shopapp.util.MergePatch;
+import fr.fullstack.shopapp.util.QueryModes;
 import jakarta.validation.Valid;
 
 @RestController
@@ -62,31 +81,111 @@ public class ShopController {
             @RequestParam(required = false) Optional<Boolean> inVacations,
             @RequestParam(required = false) Optional<String> createdAfter,
             @RequestParam(required = false) Optional<String> createdBefore,
-            @RequestParam(required = false) Optional<String> label
+            @RequestParam(required = false) Optional<String> label,
+            @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) Optional<LocalDateTime> openAt,
+            @RequestParam(defaultValue = "false") boolean facets,
+            WebRequest request
 
     ) {
-        return ResponseEntity.ok(
-                service.getShopList(sortBy, inVacations, createdAfter, createdBefore, label, pageable));
+        try {
+            QueryModes.checkNotCombined(request, "ids", "after");
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return ResponseEntity.ok(service.getShopList(
+                sortBy, inVacations, createdBefore, createdAfter, label, openAt, facets, pageable));
+    }
+
+    @GetMapping(params = { "after", "!ids" })
+    public ResponseEntity<CursorPage<Shop>> getAllShopsAfter(
+            Pageable pageable,
+            @RequestParam String after,
+            @RequestParam(required = false) Optional<String> sortBy,
+            @RequestParam(required = false) Optional<Boolean> inVacations,
+            @RequestParam(required = false) Optional<String> createdAfter,
+            @RequestParam(required = false) Optional<String> createdBefore,
+            @RequestParam(required = false) Optional<String> label,
+            @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) Optional<LocalDateTime> openAt) {
+        try {
+            return ResponseEntity.ok(service.getShopListAfter(
+                    sortBy, inVacations, createdBefore, createdAfter, label, openAt, after,
+                    pageable.getPageSize()));
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportShops() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(output -> service.exportShops(output));
+    }
+
+    @GetMapping(params = { "ids", "!after" })
+    public ResponseEntity<BatchResult<Shop>> getShopsByIds(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(service.getShopsByIds(ids));
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Shop> getShopById(@PathVariable long id) {
+    public ResponseEntity<Shop> getShopById(@PathVariable long id, WebRequest request) {
+        try {
+            // Only the version is read when the client copy is still current
+            String etag = service.getShopEtag(id);
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            return ResponseEntity.ok().eTag(etag).body(service.getShopById(id));
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Suggestion>> suggestShops(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int size) {
+        try {
+            return ResponseEntity.ok(service.suggestShops(q, size));
+        } catch (Exception e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @PatchMapping(value = "/{id}", consumes = { MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<Shop> patchShop(
+            @PathVariable long id,
+            @RequestBody JsonNode patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) Optional<String> ifMatch) {
         try {
-            return ResponseEntity.ok().body(service.getShopById(id));
+            Shop patchedShop = service.patchShop(id, patch, Etags.parseIfMatch(ifMatch));
+            return ResponseEntity.ok().eTag(service.getShopEtag(id)).body(patchedShop);
+        } catch (VersionConflictException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, e.getMessage());
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
     }
 
     @PutMapping
-    public ResponseEntity<Shop> updateShop(@Valid @RequestBody Shop shop, Errors errors) {
+    public ResponseEntity<Shop> updateShop(
+            @Valid @RequestBody Shop shop,
+            Errors errors,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) Optional<String> ifMatch) {
         if (errors.hasErrors()) {
             throw new ResponseStatusException(
                     HttpStatus.BAD_REQUEST, ErrorValidation.getErrorValidationMessage(errors));
         }
 
         try {
-            return ResponseEntity.ok().body(service.updateShop(shop));
+            Shop updatedShop = service.updateShop(shop, Etags.parseIfMatch(ifMatch));
+            return ResponseEntity.ok().eTag(service.getShopEtag(updatedShop.getId())).body(updatedShop);
+        } catch (VersionConflictException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, e.getMessage());
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
         }
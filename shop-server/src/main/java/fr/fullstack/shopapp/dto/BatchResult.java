@@ -0,0 +1,64 @@
+package fr.fullstack.shopapp.dto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+/**
+ * Entities looked up by a list of ids, in the order of the ids. Ids without an entity are listed
+ * in missing instead of failing the whole lookup.
+ */
+public class BatchResult<T> {
+    public static final int MAX_IDS = 500;
+
+    private final List<T> content;
+
+    private final List<Long> missing;
+
+    public BatchResult(List<T> content, List<Long> missing) {
+        this.content = content;
+        this.missing = missing;
+    }
+
+    /**
+     * Returns the requested ids without duplicates, in their first order.
+     */
+    public static Set<Long> distinctIds(List<Long> ids) throws Exception {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        if (distinctIds.isEmpty() || distinctIds.size() > MAX_IDS) {
+            throw new Exception("Between 1 and " + MAX_IDS + " ids must be provided");
+        }
+        return distinctIds;
+    }
+
+    public static <T> BatchResult<T> of(Set<Long> ids, Collection<T> found, ToLongFunction<T> idOf) {
+        Map<Long, T> foundById = new HashMap<>();
+        for (T entity : found) {
+            foundById.put(idOf.applyAsLong(entity), entity);
+        }
+        List<T> content = new ArrayList<>(foundById.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            T entity = foundById.get(id);
+            if (entity != null) {
+                content.add(entity);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new BatchResult<>(content, missing);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public List<Long> getMissing() {
+        return missing;
+    }
+}
@@ -0,0 +1,30 @@
+package fr.fullstack.shopapp.dto;
+
+import java.util.List;
+
+public class CursorPage<T> {
+    private final List<T> content;
+
+    private final String next;
+
+    public CursorPage(List<T> content, String next) {
+        this.content = content;
+        this.next = next;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public boolean getLast() {
+        return next == null;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public int getSize() {
+        return content.size();
+    }
+}
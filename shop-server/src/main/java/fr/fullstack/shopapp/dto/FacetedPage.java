@@ -0,0 +1,24 @@
+package fr.fullstack.shopapp.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * A page of search hits with the facet counts computed by the same search request.
+ * Facets are keyed by name, then by bucket.
+ */
+public class FacetedPage<T> extends PageImpl<T> {
+    private final Map<String, Map<String, Long>> facets;
+
+    public FacetedPage(List<T> content, Pageable pageable, long total, Map<String, Map<String, Long>> facets) {
+        super(content, pageable, total);
+        this.facets = facets;
+    }
+
+    public Map<String, Map<String, Long>> getFacets() {
+        return facets;
+    }
+}
@@ -0,0 +1,46 @@
+package fr.fullstack.shopapp.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImportReport {
+    private final List<ItemError> errors = new ArrayList<>();
+
+    private int imported;
+
+    public void addError(int index, String message) {
+        errors.add(new ItemError(index, message));
+    }
+
+    public void addImported(int count) {
+        imported += count;
+    }
+
+    public List<ItemError> getErrors() {
+        return errors;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public static class ItemError {
+        // Position of the item in the uploaded array or NDJSON stream, starting at 0
+        private final int index;
+
+        private final String message;
+
+        public ItemError(int index, String message) {
+            this.index = index;
+            this.message = message;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
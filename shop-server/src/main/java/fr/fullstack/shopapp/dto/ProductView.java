@@ -0,0 +1,82 @@
+package fr.fullstack.shopapp.dto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A product in a single locale, read by a projection query instead of loading the entity
+ * with all its translations. The shop and the categories are reduced to their id and name.
+ */
+public class ProductView {
+    private final List<Reference> categories = new ArrayList<>();
+
+    private final String description;
+
+    private final long id;
+
+    private final String locale;
+
+    private final String name;
+
+    private final long priceCents;
+
+    private final Reference shop;
+
+    public ProductView(long id, long priceCents, String locale, String name, String description, Long shopId,
+            String shopName) {
+        this.id = id;
+        this.priceCents = priceCents;
+        this.locale = locale;
+        this.name = name;
+        this.description = description;
+        this.shop = shopId != null ? new Reference(shopId, shopName) : null;
+    }
+
+    public List<Reference> getCategories() {
+        return categories;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getLocale() {
+        return locale;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BigDecimal getPrice() {
+        return BigDecimal.valueOf(priceCents, 2);
+    }
+
+    public Reference getShop() {
+        return shop;
+    }
+
+    public static class Reference {
+        private final long id;
+
+        private final String name;
+
+        public Reference(long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package fr.fullstack.shopapp.dto;
+
+public class Suggestion {
+    private final long id;
+
+    private final String name;
+
+    public Suggestion(long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
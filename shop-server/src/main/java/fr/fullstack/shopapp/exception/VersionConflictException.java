@@ -0,0 +1,11 @@
+package fr.fullstack.shopapp.exception;
+
+/**
+ * The ETag expected by an update (If-Match) is not the current one.
+ */
+public class VersionConflictException extends Exception {
+
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
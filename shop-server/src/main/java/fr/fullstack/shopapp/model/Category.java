@@ -3,6 +3,9 @@ package fr.fullstack.shopapp.model;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.search.engine.backend.types.Aggregable;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.GenericField;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.Column;
@@ -12,6 +15,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
@@ -20,6 +24,7 @@ import jakarta.validation.constraints.Size;
 public class Category {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
+    @GenericField(aggregable = Aggregable.YES)
     private long id;
 
     @Size(min = 1, max = 255, message = "Name must be between 1 and 255 characters")
@@ -31,6 +36,11 @@ public class Category {
     @JsonIgnore
     private List<Product> products = new ArrayList<Product>();
 
+    // Incremented on every update, used for optimistic locking and as ETag
+    @Version
+    @Column(columnDefinition = "int8 default 0 not null")
+    private long version;
+
     public long getId() {
         return id;
     }
@@ -43,6 +53,10 @@ public class Category {
         return products;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public void setId(long id) {
         this.id = id;
     }
@@ -54,4 +68,8 @@ public class Category {
     public void setProducts(List<Product> products) {
         this.products = products;
     }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
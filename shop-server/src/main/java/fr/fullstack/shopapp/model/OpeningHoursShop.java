@@ -2,7 +2,13 @@ package fr.fullstack.shopapp.model;
 
 import java.time.LocalTime;
 
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.GenericField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.IndexingDependency;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.ObjectPath;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.PropertyValue;
+
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -20,12 +26,14 @@ public class OpeningHoursShop {
     @Column(nullable = false)
     @JsonFormat(pattern = "HH:mm:ss")
     @NotNull(message = "CloseAt may not be null")
+    @GenericField
     private LocalTime closeAt;
 
     @Column(nullable = false)
     @NotNull(message = "Day may not be null")
     @Min(value = 1, message = "Day should not be less than 1")
     @Max(value = 7, message = "Day should not be greater than 7")
+    @GenericField
     private int day;
 
     @Id
@@ -35,6 +43,7 @@ public class OpeningHoursShop {
     @Column(nullable = false)
     @JsonFormat(pattern = "HH:mm:ss")
     @NotNull(message = "OpenAt may not be null")
+    @GenericField
     private LocalTime openAt;
 
     public LocalTime getCloseAt() {
@@ -53,6 +62,18 @@ public class OpeningHoursShop {
         return openAt;
     }
 
+    /**
+     * Whether the slot ends on the next day, a search filter cannot compare two fields.
+     */
+    @JsonIgnore
+    @GenericField
+    @IndexingDependency(derivedFrom = {
+            @ObjectPath(@PropertyValue(propertyName = "openAt")),
+            @ObjectPath(@PropertyValue(propertyName = "closeAt")) })
+    public boolean isOvernight() {
+        return closeAt != null && openAt != null && closeAt.isBefore(openAt);
+    }
+
     public void setCloseAt(LocalTime closeAt) {
         this.closeAt = closeAt;
     }
@@ -1,8 +1,21 @@
 package fr.fullstack.shopapp.model;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.search.engine.backend.types.Aggregable;
+import org.hibernate.search.engine.backend.types.Sortable;
+import org.hibernate.search.mapper.pojo.bridge.mapping.annotation.PropertyBinderRef;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.GenericField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.IndexedEmbedded;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.PropertyBinding;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import fr.fullstack.shopapp.search.LocalizedProductBinder;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -16,21 +29,27 @@ import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.Valid;
-import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
 
 @Entity
 @Table(name = "products", indexes = {
-        @Index(name = "idx_shop", columnList = "shop_id")
+        @Index(name = "idx_shop", columnList = "shop_id"),
+        // Price ranges and sorts, id being the tie-breaker of the keyset pagination
+        @Index(name = "idx_product_shop_price_id", columnList = "shop_id, price_cents, id"),
+        @Index(name = "idx_product_price_id", columnList = "price_cents, id")
 })
+@Indexed(index = "idx_products")
+@DynamicUpdate
 public class Product {
     @ManyToMany
     @JoinTable(name = "products_categories", joinColumns = @JoinColumn(name = "product_id"), inverseJoinColumns = @JoinColumn(name = "category_id"), indexes = {
             @Index(columnList = "product_id"),
             @Index(columnList = "category_id")
     })
+    @IndexedEmbedded(includePaths = "id")
     private List<Category> categories = new ArrayList<Category>();
 
     @Id
@@ -40,17 +59,25 @@ public class Product {
     @OneToMany(cascade = {
             CascadeType.ALL }, orphanRemoval = true)
     @Size(min = 1, message = "At least one name and one description must be provided")
+    @PropertyBinding(binder = @PropertyBinderRef(type = LocalizedProductBinder.class))
     private List<@Valid LocalizedProduct> localizedProduct = new ArrayList<LocalizedProduct>();
 
-    @Column(nullable = false)
+    // Stored in cents so that it stays exact, the API exposes it in euros
+    @Column(name = "price_cents", nullable = false)
     @PositiveOrZero(message = "Price must be positive")
-    @NotNull(message = "Price may not be null")
-    private long price;
+    @GenericField(name = "price_cents", sortable = Sortable.YES, aggregable = Aggregable.YES)
+    private long priceCents;
 
     @ManyToOne
     @JoinColumn(name = "shop_id")
+    @IndexedEmbedded(includePaths = "id")
     private Shop shop;
 
+    // Incremented on every update, used for optimistic locking and as ETag
+    @Version
+    @Column(columnDefinition = "int8 default 0 not null")
+    private long version;
+
     public List<Category> getCategories() {
         return categories;
     }
@@ -63,14 +90,23 @@ public class Product {
         return localizedProduct;
     }
 
-    public float getPrice() {
-        return price;
+    public BigDecimal getPrice() {
+        return BigDecimal.valueOf(priceCents, 2);
+    }
+
+    @JsonIgnore
+    public long getPriceCents() {
+        return priceCents;
     }
 
     public Shop getShop() {
         return shop;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public void setCategories(List<Category> categories) {
         this.categories = categories;
     }
@@ -83,11 +119,31 @@ public class Product {
         this.localizedProduct = localizedProduct;
     }
 
-    public void setPrice(long price) {
-        this.price = price;
+    public void setPrice(BigDecimal price) {
+        this.priceCents = toCents(price);
+    }
+
+    @JsonIgnore
+    public void setPriceCents(long priceCents) {
+        this.priceCents = priceCents;
     }
 
     public void setShop(Shop shop) {
         this.shop = shop;
     }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public static long toCents(BigDecimal price) {
+        if (price == null) {
+            throw new IllegalArgumentException("Price may not be null");
+        }
+        try {
+            return price.movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Price must have at most 2 decimals");
+        }
+    }
 }
@@ -5,14 +5,23 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.hibernate.annotations.CreationTimestamp;
-import org.hibernate.annotations.Formula;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.search.engine.backend.types.Aggregable;
+import org.hibernate.search.engine.backend.types.ObjectStructure;
+import org.hibernate.search.engine.backend.types.Projectable;
+import org.hibernate.search.engine.backend.types.Sortable;
 import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
 import org.hibernate.search.mapper.pojo.mapping.definition.annotation.GenericField;
+import org.hibernate.search.mapper.pojo.automaticindexing.ReindexOnUpdate;
 import org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.IndexedEmbedded;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.IndexingDependency;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.KeywordField;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import fr.fullstack.shopapp.search.SuggestAnalysisConfigurer;
 import fr.fullstack.shopapp.validation.NotOverlapping;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
@@ -21,47 +30,77 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
 @Entity
-@Table(name = "shops")
+@Table(name = "shops", indexes = {
+        @Index(name = "idx_shop_name_id", columnList = "name, id"),
+        @Index(name = "idx_shop_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_shop_nb_products_id", columnList = "nb_products, id")
+})
 @Indexed(index = "idx_shops")
+@DynamicUpdate
 public class Shop {
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     @JsonFormat(pattern = "yyyy-MM-dd")
+    @GenericField(sortable = Sortable.YES, aggregable = Aggregable.YES)
     private LocalDate createdAt;
 
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
+    @GenericField(sortable = Sortable.YES)
     private long id;
 
     @Column(nullable = false)
     @NotNull(message = "InVacations may not be null")
+    // inVacations_facet is a separate field, doc values cannot be enabled on an existing one
     @GenericField
+    @GenericField(name = "inVacations_facet", aggregable = Aggregable.YES)
     private boolean inVacations;
 
     @Column(nullable = false)
     @Size(min = 1, max = 255, message = "Name must be between 1 and 255 characters")
     @NotNull(message = "Name may not be null")
     @FullTextField(analyzer = "standard")
+    @FullTextField(name = "name_suggest", analyzer = SuggestAnalysisConfigurer.ANALYZER,
+            searchAnalyzer = SuggestAnalysisConfigurer.QUERY_ANALYZER, projectable = Projectable.YES)
+    @KeywordField(name = "name_sort", sortable = Sortable.YES)
     private String name;
 
-    @Formula(value = "(SELECT COUNT(*) FROM products p WHERE p.shop_id = id)")
-    private Long nbProducts;
+    // Counters maintained by ShopRepository.updateCounters, never written from the entity
+    @Column(name = "nb_categories", insertable = false, updatable = false,
+            columnDefinition = "int8 default 0 not null")
+    private long nbCategories;
 
-    @OneToMany(cascade = { CascadeType.ALL })
+    @Column(name = "nb_products", insertable = false, updatable = false,
+            columnDefinition = "int8 default 0 not null")
+    @GenericField(sortable = Sortable.YES)
+    private long nbProducts;
+
+    @OneToMany(cascade = { CascadeType.ALL }, orphanRemoval = true)
     @NotOverlapping
+    // Searched when too many shops are open to filter them by id. A slot has no link back to its
+    // shop, the shop services reindex the shop when a slot changes
+    @IndexedEmbedded(structure = ObjectStructure.NESTED)
+    @IndexingDependency(reindexOnUpdate = ReindexOnUpdate.SHALLOW)
     private List<@Valid OpeningHoursShop> openingHours = new ArrayList<OpeningHoursShop>();
 
     @OneToMany(mappedBy = "shop", fetch = FetchType.LAZY)
     @JsonIgnore
     private List<Product> products = new ArrayList<Product>();
 
+    // Incremented on every update, used for optimistic locking and as ETag
+    @Version
+    @Column(columnDefinition = "int8 default 0 not null")
+    private long version;
+
     public Shop() {
     }
 
@@ -81,6 +120,10 @@ public class Shop {
         return name;
     }
 
+    public long getNbCategories() {
+        return nbCategories;
+    }
+
     public long getNbProducts() {
         return nbProducts;
     }
@@ -93,6 +136,10 @@ public class Shop {
         return this.products;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public void setId(long id) {
         this.id = id;
     }
@@ -105,6 +152,10 @@ public class Shop {
         this.name = name;
     }
 
+    public void setNbCategories(long nbCategories) {
+        this.nbCategories = nbCategories;
+    }
+
     public void setNbProducts(long nbProducts) {
         this.nbProducts = nbProducts;
     }
@@ -117,4 +168,8 @@ public class Shop {
         this.products = products;
     }
 
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
 }
@@ -1,10 +1,25 @@
 package fr.fullstack.shopapp.repository;
 
 import fr.fullstack.shopapp.model.Category;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+    @Query("SELECT c.id FROM Category c WHERE c.id IN ?1")
+    List<Long> findExistingIds(Collection<Long> ids);
+
     Page<Category> findByOrderByIdAsc(Pageable pageable);
+
+    @Query("SELECT c.version FROM Category c WHERE c.id = ?1")
+    Optional<Long> findVersionById(long id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM products_categories WHERE category_id = ?1", nativeQuery = true)
+    int deleteProductRelations(long categoryId);
 }
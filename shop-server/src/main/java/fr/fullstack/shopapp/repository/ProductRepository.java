@@ -1,19 +1,122 @@
 package fr.fullstack.shopapp.repository;
 
+import fr.fullstack.shopapp.dto.ProductView;
 import fr.fullstack.shopapp.model.Product;
+import fr.fullstack.shopapp.util.NdjsonExporter;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
-    Page<Product> findByOrderByIdAsc(Pageable pageable);
+// The shop is fetch-joined, the collections (categories, localized products, opening hours)
+// are loaded in batches thanks to hibernate.default_batch_fetch_size
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+    // One row per product: the translation in the requested locale when there is one, else the
+    // french one, which every product has
+    String VIEW_SELECT = "SELECT new fr.fullstack.shopapp.dto.ProductView(p.id, p.priceCents, "
+            + "COALESCE(l.locale, fr.locale), "
+            + "CASE WHEN l.id IS NULL THEN fr.name ELSE l.name END, "
+            + "CASE WHEN l.id IS NULL THEN fr.description ELSE l.description END, "
+            + "s.id, s.name) "
+            + "FROM Product p "
+            + "JOIN p.localizedProduct fr ON fr.locale = 'FR' "
+            + "LEFT JOIN p.localizedProduct l ON l.locale = :locale "
+            + "LEFT JOIN p.shop s ";
 
-    @Query(value = "SELECT * FROM Products WHERE shop_id = ?1", nativeQuery = true)
-    Page<Product> findByShop(Long shopId, Pageable pageable);
+    String PRICE_RANGE = "p.priceCents BETWEEN :minPriceCents AND :maxPriceCents";
 
-    @Query(value = "SELECT * FROM Products p WHERE p.shop_id = ?1 AND p.id IN (SELECT pc.product_id FROM "
-            + "products_categories pc WHERE pc.category_id = ?2)",
-           nativeQuery = true)
-    Page<Product> findByShopAndCategory(Long shopId, Long categoryId, Pageable pageable);
+    @Query(value = VIEW_SELECT + "WHERE " + PRICE_RANGE,
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE " + PRICE_RANGE)
+    Page<ProductView> findViews(
+            @Param("minPriceCents") long minPriceCents,
+            @Param("maxPriceCents") long maxPriceCents,
+            @Param("locale") String locale,
+            Pageable pageable);
+
+    @Query(value = VIEW_SELECT + "WHERE s.id = :shopId AND " + PRICE_RANGE,
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.shop.id = :shopId AND " + PRICE_RANGE)
+    Page<ProductView> findViewsByShop(
+            @Param("shopId") Long shopId,
+            @Param("minPriceCents") long minPriceCents,
+            @Param("maxPriceCents") long maxPriceCents,
+            @Param("locale") String locale,
+            Pageable pageable);
+
+    @Query(value = VIEW_SELECT + "WHERE s.id = :shopId AND " + PRICE_RANGE + " AND EXISTS "
+            + "(SELECT 1 FROM p.categories c WHERE c.id = :categoryId)",
+            countQuery = "SELECT COUNT(p) FROM Product p JOIN p.categories c "
+                    + "WHERE p.shop.id = :shopId AND c.id = :categoryId AND " + PRICE_RANGE)
+    Page<ProductView> findViewsByShopAndCategory(
+            @Param("shopId") Long shopId,
+            @Param("categoryId") Long categoryId,
+            @Param("minPriceCents") long minPriceCents,
+            @Param("maxPriceCents") long maxPriceCents,
+            @Param("locale") String locale,
+            Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE p.id = :id")
+    Optional<ProductView> findViewById(@Param("id") long id, @Param("locale") String locale);
+
+    // product id, category id, category name
+    @Query("SELECT p.id, c.id, c.name FROM Product p JOIN p.categories c WHERE p.id IN ?1 ORDER BY c.id")
+    List<Object[]> findCategoriesByIds(Collection<Long> ids);
+
+    @Override
+    @EntityGraph(attributePaths = { "shop" })
+    Page<Product> findAll(Specification<Product> spec, Pageable pageable);
+
+    @Query("SELECT DISTINCT p.shop.id FROM Product p JOIN p.categories c WHERE c.id = ?1")
+    List<Long> findShopIdsByCategory(long categoryId);
+
+    @Query("SELECT p.id FROM Product p JOIN p.categories c WHERE c.id = ?1")
+    List<Long> findIdsByCategory(long categoryId);
+
+    @Query("SELECT p.id FROM Product p WHERE p.shop.id = ?1")
+    List<Long> findIdsByShop(long shopId);
+
+    // Two collections cannot be fetched by the same query, the categories are fetched by a second
+    // one into the same persistence context
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.shop LEFT JOIN FETCH p.localizedProduct WHERE p.id IN ?1")
+    List<Product> findAllWithTranslationsByIdIn(Collection<Long> ids);
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.categories WHERE p.id IN ?1")
+    List<Product> fetchCategoriesByIdIn(Collection<Long> ids);
+
+    // The shop and the categories are part of the product representation, their versions are in its ETag
+    @Query("SELECT p.version, COALESCE(s.version, -1), COALESCE(SUM(c.version), 0), COUNT(c) FROM Product p "
+            + "LEFT JOIN p.shop s LEFT JOIN p.categories c WHERE p.id = ?1 GROUP BY p.version, s.version")
+    List<Object[]> findVersionsById(long id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE VERSIONED Product p SET p.shop = null WHERE p.shop.id = ?1")
+    int detachFromShop(long shopId);
+
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "" + NdjsonExporter.CHUNK_SIZE),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.shop ORDER BY p.id")
+    Stream<Product> streamAll();
+
+    // category id, product id
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "" + NdjsonExporter.CHUNK_SIZE))
+    @Query("SELECT c.id, p.id FROM Product p JOIN p.categories c")
+    Stream<Object[]> streamCategoryRelations();
+
+    // shop id, product id
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "" + NdjsonExporter.CHUNK_SIZE))
+    @Query("SELECT p.shop.id, p.id FROM Product p WHERE p.shop IS NOT NULL")
+    Stream<Object[]> streamShopRelations();
 }
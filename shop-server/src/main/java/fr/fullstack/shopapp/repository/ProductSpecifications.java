@@ -0,0 +1,40 @@
+package fr.fullstack.shopapp.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import fr.fullstack.shopapp.model.Product;
+import jakarta.persistence.criteria.Predicate;
+
+public class ProductSpecifications {
+    public static Specification<Product> withFilters(
+            Optional<Long> shopId,
+            Optional<Long> categoryId,
+            Optional<Long> minPriceCents,
+            Optional<Long> maxPriceCents) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (shopId.isPresent()) {
+                predicates.add(cb.equal(root.get("shop").get("id"), shopId.get()));
+            }
+
+            if (categoryId.isPresent()) {
+                predicates.add(cb.equal(root.join("categories").get("id"), categoryId.get()));
+            }
+
+            if (minPriceCents.isPresent()) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("priceCents"), minPriceCents.get()));
+            }
+
+            if (maxPriceCents.isPresent()) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("priceCents"), maxPriceCents.get()));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -1,14 +1,25 @@
 package fr.fullstack.shopapp.repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.AvailableHints;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import fr.fullstack.shopapp.model.Shop;
+import fr.fullstack.shopapp.util.NdjsonExporter;
+import jakarta.persistence.QueryHint;
 
 public interface ShopRepository extends JpaRepository<Shop, Long>, JpaSpecificationExecutor<Shop> {
         Page<Shop> findByCreatedAtBetween(LocalDate dateStart, LocalDate dateEnd, Pageable pageable);
@@ -35,14 +46,33 @@ public interface ShopRepository extends JpaRepository<Shop, Long>, JpaSpecificat
         // SORT
         Page<Shop> findByOrderByNameAsc(Pageable pageable);
 
-        @Query(value = "SELECT *,"
-                        + "(SELECT COUNT(*) FROM products p WHERE p.shop_id = s.id) as nbProducts, "
-                        + "(SELECT COUNT(DISTINCT pc.category_id) FROM products_categories pc WHERE pc.product_id IN "
-                        + "(SELECT p.id FROM products p WHERE p.shop_id = s.id)) as nbCategories "
-                        + "FROM shops s "
-                        + "ORDER BY (SELECT COUNT(*) FROM products p WHERE p.shop_id = s.id) DESC", countQuery = "SELECT * "
-                                        + "FROM shops s "
-                                        + "ORDER BY (SELECT COUNT(*) FROM products p WHERE p.shop_id = s.id) DESC", nativeQuery = true)
-        Page<Shop> findByOrderByNbProductsAsc(Pageable pageable);
+        @QueryHints({
+                        @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "" + NdjsonExporter.CHUNK_SIZE),
+                        @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+        })
+        @Query("SELECT s FROM Shop s ORDER BY s.id")
+        Stream<Shop> streamAll();
+
+        @Query("SELECT s.id, oh.day, oh.openAt, oh.closeAt FROM Shop s JOIN s.openingHours oh")
+        List<Object[]> findAllOpeningHours();
+
+        @Query("SELECT s.id FROM Shop s WHERE s.id IN ?1")
+        List<Long> findExistingIds(Collection<Long> ids);
+
+        @Query("SELECT s FROM Shop s LEFT JOIN FETCH s.openingHours WHERE s.id IN ?1")
+        List<Shop> findAllWithOpeningHoursByIdIn(Collection<Long> ids);
+
+        @Query("SELECT s.version FROM Shop s WHERE s.id = ?1")
+        Optional<Long> findVersionById(long id);
+
+        // COUNTERS
+        // The counters are part of the shop representation, the version is bumped so that its ETag changes
+        @Modifying(flushAutomatically = true)
+        @Query(value = "UPDATE shops s SET version = version + 1, "
+                        + "nb_products = (SELECT COUNT(*) FROM products p WHERE p.shop_id = s.id), "
+                        + "nb_categories = (SELECT COUNT(DISTINCT pc.category_id) FROM products_categories pc "
+                        + "JOIN products p ON p.id = pc.product_id WHERE p.shop_id = s.id) "
+                        + "WHERE s.id IN (:shopIds)", nativeQuery = true)
+        void updateCounters(@Param("shopIds") Collection<Long> shopIds);
 
 }
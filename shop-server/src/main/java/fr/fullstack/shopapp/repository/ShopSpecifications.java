@@ -0,0 +1,81 @@
+package fr.fullstack.shopapp.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import fr.fullstack.shopapp.model.OpeningHoursShop;
+import fr.fullstack.shopapp.model.Shop;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+public class ShopSpecifications {
+    public static Specification<Shop> withIds(Collection<Long> ids) {
+        return (root, query, cb) -> ids.isEmpty() ? cb.disjunction() : root.get("id").in(ids);
+    }
+
+    /**
+     * Shops having a slot open at this time, same rules as OpeningHoursIndex: a slot closing before
+     * it opens ends on the next day, and sunday continues on monday.
+     */
+    public static Specification<Shop> openAt(LocalDateTime at) {
+        int day = at.getDayOfWeek().getValue();
+        int previousDay = day == 1 ? 7 : day - 1;
+        LocalTime time = at.toLocalTime().truncatedTo(ChronoUnit.MINUTES);
+        return (root, query, cb) -> {
+            Subquery<Long> slots = query.subquery(Long.class);
+            Root<Shop> shop = slots.correlate(root);
+            Join<Shop, OpeningHoursShop> slot = shop.join("openingHours");
+            Path<LocalTime> openAt = slot.get("openAt");
+            Path<LocalTime> closeAt = slot.get("closeAt");
+            Predicate overnight = cb.lessThan(closeAt, openAt);
+            Predicate today = cb.and(
+                    cb.equal(slot.get("day"), day),
+                    cb.lessThanOrEqualTo(openAt, time),
+                    cb.or(cb.greaterThan(closeAt, time), overnight));
+            Predicate fromPreviousDay = cb.and(
+                    cb.equal(slot.get("day"), previousDay),
+                    overnight,
+                    cb.greaterThan(closeAt, time));
+            slots.select(shop.get("id")).where(cb.or(today, fromPreviousDay));
+            return cb.exists(slots);
+        };
+    }
+
+    public static Specification<Shop> withFilters(
+            Optional<Boolean> inVacations,
+            Optional<String> createdBefore,
+            Optional<String> createdAfter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (inVacations.isPresent()) {
+                predicates.add(inVacations.get()
+                        ? cb.isTrue(root.get("inVacations"))
+                        : cb.isFalse(root.get("inVacations")));
+            }
+
+            if (createdBefore.isPresent()) {
+                LocalDate ld = LocalDate.parse(createdBefore.get());
+                predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), ld));
+            }
+
+            if (createdAfter.isPresent()) {
+                LocalDate ld = LocalDate.parse(createdAfter.get());
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), ld));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,36 @@
+package fr.fullstack.shopapp.search;
+
+import org.hibernate.search.backend.elasticsearch.analysis.ElasticsearchAnalysisConfigurationContext;
+import org.hibernate.search.backend.elasticsearch.analysis.ElasticsearchAnalysisConfigurer;
+
+import fr.fullstack.shopapp.model.Locale;
+
+/**
+ * One analyzer per supported locale, used for the localized product texts.
+ * Accents and case are folded so that "creme" matches "Crème", and words are reduced to
+ * their stem so that singular and plural forms match.
+ */
+public class LocalizedAnalysisConfigurer implements ElasticsearchAnalysisConfigurer {
+
+    public static String analyzer(Locale locale) {
+        return "localized_" + locale.name().toLowerCase();
+    }
+
+    @Override
+    public void configure(ElasticsearchAnalysisConfigurationContext context) {
+        context.tokenFilter("french_elision").type("elision")
+                .param("articles_case", true)
+                .param("articles", "l", "m", "t", "qu", "n", "s", "j", "d", "c", "jusqu", "quoiqu", "lorsqu",
+                        "puisqu");
+        context.tokenFilter("french_stemmer").type("stemmer").param("language", "light_french");
+        context.analyzer(analyzer(Locale.FR)).custom()
+                .tokenizer("standard")
+                .tokenFilters("french_elision", "lowercase", "asciifolding", "french_stemmer");
+
+        context.tokenFilter("english_possessive_stemmer").type("stemmer").param("language", "possessive_english");
+        context.tokenFilter("english_stemmer").type("stemmer").param("language", "light_english");
+        context.analyzer(analyzer(Locale.EN)).custom()
+                .tokenizer("standard")
+                .tokenFilters("english_possessive_stemmer", "lowercase", "asciifolding", "english_stemmer");
+    }
+}
@@ -0,0 +1,97 @@
+package fr.fullstack.shopapp.search;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.search.engine.backend.document.DocumentElement;
+import org.hibernate.search.engine.backend.document.IndexFieldReference;
+import org.hibernate.search.engine.backend.types.Projectable;
+import org.hibernate.search.mapper.pojo.bridge.PropertyBridge;
+import org.hibernate.search.mapper.pojo.bridge.binding.PropertyBindingContext;
+import org.hibernate.search.mapper.pojo.bridge.mapping.programmatic.PropertyBinder;
+import org.hibernate.search.mapper.pojo.bridge.runtime.PropertyBridgeWriteContext;
+
+import fr.fullstack.shopapp.model.Locale;
+import fr.fullstack.shopapp.model.LocalizedProduct;
+
+/**
+ * Indexes the localized names and descriptions of a product in one field per locale
+ * (name_fr, description_fr, ...), each analyzed with the analyzer of its locale, and the names
+ * again in name_suggest_fr, ... for type-ahead.
+ * Only changes of the list itself are tracked: changing the texts of an existing translation
+ * must reindex the product explicitly.
+ */
+public class LocalizedProductBinder implements PropertyBinder {
+
+    public static String descriptionField(Locale locale) {
+        return "description_" + locale.name().toLowerCase();
+    }
+
+    public static String nameField(Locale locale) {
+        return "name_" + locale.name().toLowerCase();
+    }
+
+    public static String nameSuggestField(Locale locale) {
+        return "name_suggest_" + locale.name().toLowerCase();
+    }
+
+    @Override
+    public void bind(PropertyBindingContext context) {
+        context.dependencies().useRootOnly();
+
+        Map<Locale, IndexFieldReference<String>> names = new EnumMap<>(Locale.class);
+        Map<Locale, IndexFieldReference<String>> descriptions = new EnumMap<>(Locale.class);
+        Map<Locale, IndexFieldReference<String>> suggestNames = new EnumMap<>(Locale.class);
+        for (Locale locale : Locale.values()) {
+            String analyzer = LocalizedAnalysisConfigurer.analyzer(locale);
+            names.put(locale, context.indexSchemaElement()
+                    .field(nameField(locale), f -> f.asString().analyzer(analyzer))
+                    .multiValued()
+                    .toReference());
+            descriptions.put(locale, context.indexSchemaElement()
+                    .field(descriptionField(locale), f -> f.asString().analyzer(analyzer))
+                    .multiValued()
+                    .toReference());
+            suggestNames.put(locale, context.indexSchemaElement()
+                    .field(nameSuggestField(locale), f -> f.asString()
+                            .analyzer(SuggestAnalysisConfigurer.ANALYZER)
+                            .searchAnalyzer(SuggestAnalysisConfigurer.QUERY_ANALYZER)
+                            .projectable(Projectable.YES))
+                    .multiValued()
+                    .toReference());
+        }
+
+        context.bridge(List.class, new Bridge(names, descriptions, suggestNames));
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static class Bridge implements PropertyBridge<List> {
+        private final Map<Locale, IndexFieldReference<String>> descriptions;
+
+        private final Map<Locale, IndexFieldReference<String>> names;
+
+        private final Map<Locale, IndexFieldReference<String>> suggestNames;
+
+        private Bridge(Map<Locale, IndexFieldReference<String>> names,
+                Map<Locale, IndexFieldReference<String>> descriptions,
+                Map<Locale, IndexFieldReference<String>> suggestNames) {
+            this.names = names;
+            this.descriptions = descriptions;
+            this.suggestNames = suggestNames;
+        }
+
+        @Override
+        public void write(DocumentElement target, List bridgedElement, PropertyBridgeWriteContext context) {
+            for (Object element : bridgedElement) {
+                LocalizedProduct localizedProduct = (LocalizedProduct) element;
+                Locale locale = Locale.valueOf(localizedProduct.getLocale());
+                target.addValue(names.get(locale), localizedProduct.getName());
+                target.addValue(suggestNames.get(locale), localizedProduct.getName());
+                if (localizedProduct.getDescription() != null) {
+                    target.addValue(descriptions.get(locale), localizedProduct.getDescription());
+                }
+            }
+        }
+    }
+}
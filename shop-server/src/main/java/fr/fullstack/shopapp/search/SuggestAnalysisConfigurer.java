@@ -0,0 +1,29 @@
+package fr.fullstack.shopapp.search;
+
+import org.hibernate.search.backend.elasticsearch.analysis.ElasticsearchAnalysisConfigurationContext;
+import org.hibernate.search.backend.elasticsearch.analysis.ElasticsearchAnalysisConfigurer;
+
+/**
+ * Analyzers of the type-ahead fields. Names are indexed with every prefix of their words, so a
+ * suggestion is a plain term lookup instead of a fuzzy or prefix query; the typed text itself is
+ * only split, lowercased and folded.
+ */
+public class SuggestAnalysisConfigurer implements ElasticsearchAnalysisConfigurer {
+
+    public static final String ANALYZER = "suggest";
+
+    public static final String QUERY_ANALYZER = "suggest_query";
+
+    @Override
+    public void configure(ElasticsearchAnalysisConfigurationContext context) {
+        context.tokenFilter("suggest_edge_ngram").type("edge_ngram")
+                .param("min_gram", 1)
+                .param("max_gram", 20);
+        context.analyzer(ANALYZER).custom()
+                .tokenizer("standard")
+                .tokenFilters("lowercase", "asciifolding", "suggest_edge_ngram");
+        context.analyzer(QUERY_ANALYZER).custom()
+                .tokenizer("standard")
+                .tokenFilters("lowercase", "asciifolding");
+    }
+}
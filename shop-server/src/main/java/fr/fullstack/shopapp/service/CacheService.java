@@ -0,0 +1,171 @@
+package fr.fullstack.shopapp.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import fr.fullstack.shopapp.config.CacheConfig;
+import fr.fullstack.shopapp.config.ResponseCacheFilter;
+import fr.fullstack.shopapp.model.Product;
+import fr.fullstack.shopapp.util.AfterCommit;
+
+/**
+ * Evicts the entity caches filled by the @Cacheable lookups of the services, and the serialized
+ * list pages of ResponseCacheFilter.
+ * Entries are evicted immediately and again after commit. A read that loaded the state from
+ * before the commit may still try to store it after the second eviction: every invalidation
+ * bumps the generation of its cache, and values loaded across a generation change are dropped
+ * (see putIfCurrent).
+ */
+@Service
+public class CacheService {
+    @Autowired
+    private CacheManager cacheManager;
+
+    private final Map<String, AtomicLong> invalidations = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public void evictCategory(long categoryId) {
+        evictNowAndAfterCommit(() -> {
+            invalidate(CacheConfig.CATEGORIES, categoryId);
+            invalidateAll(CacheConfig.CATEGORY_PAGES);
+            invalidateResponsePages("categories?");
+            invalidateResponsePages("products/");
+            // Products embed their categories
+            invalidateProductsIf(product -> product.getCategories().stream()
+                    .anyMatch(category -> category.getId() == categoryId));
+        });
+    }
+
+    public void evictProduct(long productId) {
+        evictNowAndAfterCommit(() -> invalidate(CacheConfig.PRODUCTS, productId));
+    }
+
+    /**
+     * Evicts the product pages of the shop, for product changes that do not touch the shop counters.
+     */
+    public void evictProductPages(long shopId) {
+        evictNowAndAfterCommit(() -> invalidateResponsePages("products/" + shopId + "?"));
+    }
+
+    public void evictShop(long shopId) {
+        evictNowAndAfterCommit(() -> {
+            invalidate(CacheConfig.SHOPS, shopId);
+            // Product writes update the counters of their shop, which evicts its product pages too
+            invalidateResponsePages("shops?");
+            invalidateResponsePages("products/" + shopId + "?");
+            // Products embed their shop
+            invalidateProductsIf(product -> product.getShop() != null && product.getShop().getId() == shopId);
+        });
+    }
+
+    public ResponseCacheFilter.CachedResponse getResponsePage(String key) {
+        return (ResponseCacheFilter.CachedResponse) getNativeCache(CacheConfig.RESPONSE_PAGES).getIfPresent(key);
+    }
+
+    public long getGeneration(String name) {
+        return generation(name).get();
+    }
+
+    public long getResponsePagesGeneration() {
+        return getGeneration(CacheConfig.RESPONSE_PAGES);
+    }
+
+    /**
+     * Stores a value loaded while the generation of the cache was the given one. The value is
+     * dropped when an invalidation ran in between, it may have been read before the write was committed.
+     */
+    public void putIfCurrent(String name, Object key, Object value, long generation) {
+        if (value == null) {
+            return;
+        }
+        Cache<Object, Object> cache = getNativeCache(name);
+        cache.put(key, value);
+        if (getGeneration(name) != generation) {
+            cache.invalidate(key);
+        }
+    }
+
+    public void putResponsePage(String key, ResponseCacheFilter.CachedResponse page, long generation) {
+        putIfCurrent(CacheConfig.RESPONSE_PAGES, key, page, generation);
+    }
+
+    public Map<String, Map<String, Long>> getStatistics() {
+        Map<String, Map<String, Long>> statistics = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache<Object, Object> cache = getNativeCache(name);
+            CacheStats stats = cache.stats();
+            Map<String, Long> cacheStatistics = new LinkedHashMap<>();
+            cacheStatistics.put("size", cache.estimatedSize());
+            cacheStatistics.put("hits", stats.hitCount());
+            cacheStatistics.put("misses", stats.missCount());
+            // Evictions by the size and TTL policy, invalidations by the write paths
+            cacheStatistics.put("evictions", stats.evictionCount());
+            cacheStatistics.put("invalidations", invalidations.computeIfAbsent(name, k -> new AtomicLong()).get());
+            statistics.put(name, cacheStatistics);
+        }
+        return statistics;
+    }
+
+    private void evictNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        AfterCommit.defer(eviction);
+    }
+
+    private AtomicLong generation(String name) {
+        return generations.computeIfAbsent(name, k -> new AtomicLong());
+    }
+
+    private Cache<Object, Object> getNativeCache(String name) {
+        return ((CaffeineCache) cacheManager.getCache(name)).getNativeCache();
+    }
+
+    // The generation is incremented before the removal, see putIfCurrent
+    private void invalidate(String name, Object key) {
+        generation(name).incrementAndGet();
+        if (getNativeCache(name).asMap().remove(key) != null) {
+            invalidations.computeIfAbsent(name, k -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    private void invalidateAll(String name) {
+        generation(name).incrementAndGet();
+        Cache<Object, Object> cache = getNativeCache(name);
+        invalidations.computeIfAbsent(name, k -> new AtomicLong()).addAndGet(cache.estimatedSize());
+        cache.invalidateAll();
+    }
+
+    private void invalidateResponsePages(String prefix) {
+        generation(CacheConfig.RESPONSE_PAGES).incrementAndGet();
+        getNativeCache(CacheConfig.RESPONSE_PAGES).asMap().keySet().removeIf(key -> {
+            boolean matches = ((String) key).startsWith(prefix);
+            if (matches) {
+                invalidations.computeIfAbsent(CacheConfig.RESPONSE_PAGES, k -> new AtomicLong()).incrementAndGet();
+            }
+            return matches;
+        });
+    }
+
+    private void invalidateProductsIf(Predicate<Product> predicate) {
+        // The cache is bounded, scanning it is cheaper than querying the ids of the products
+        generation(CacheConfig.PRODUCTS).incrementAndGet();
+        getNativeCache(CacheConfig.PRODUCTS).asMap().values().removeIf(value -> {
+            boolean matches = value instanceof Product product && predicate.test(product);
+            if (matches) {
+                invalidations.computeIfAbsent(CacheConfig.PRODUCTS, k -> new AtomicLong()).incrementAndGet();
+            }
+            return matches;
+        });
+    }
+}
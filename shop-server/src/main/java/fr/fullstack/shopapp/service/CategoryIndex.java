@@ -0,0 +1,208 @@
+package fr.fullstack.shopapp.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.roaringbitmap.longlong.PeekableLongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import fr.fullstack.shopapp.model.Category;
+import fr.fullstack.shopapp.model.Product;
+import fr.fullstack.shopapp.repository.ProductRepository;
+import fr.fullstack.shopapp.util.AfterCommit;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory index of the products of each category and of each shop, as compressed bitmaps of
+ * product ids. A filter on several categories is evaluated as intersections or unions of bitmaps
+ * instead of one SQL subquery per category, and the matching ids come out sorted, ready to be paged.
+ */
+@Service
+public class CategoryIndex {
+    public static final int MAX_CATEGORIES = 20;
+
+    private static final Roaring64Bitmap EMPTY = new Roaring64Bitmap();
+
+    private final Map<Long, Roaring64Bitmap> productsByCategory = new HashMap<>();
+
+    private final Map<Long, Roaring64Bitmap> productsByShop = new HashMap<>();
+
+    // Bitmaps are not thread safe, lookups share the read lock and updates take the write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Returns the ids of the products having all the categories, or any of them, restricted to
+     * the shop when one is given.
+     */
+    public Roaring64Bitmap findProducts(Optional<Long> shopId, Collection<Long> categoryIds, boolean matchAll) {
+        lock.readLock().lock();
+        try {
+            List<Roaring64Bitmap> bitmaps = new ArrayList<>();
+            for (Long categoryId : categoryIds) {
+                bitmaps.add(productsByCategory.getOrDefault(categoryId, EMPTY));
+            }
+            if (bitmaps.isEmpty()) {
+                return new Roaring64Bitmap();
+            }
+
+            Roaring64Bitmap products;
+            if (matchAll) {
+                // Starting from the smallest bitmap keeps every intersection small
+                bitmaps.sort(Comparator.comparingLong(Roaring64Bitmap::getLongCardinality));
+                products = bitmaps.get(0).clone();
+                for (int i = 1; i < bitmaps.size() && !products.isEmpty(); i++) {
+                    products.and(bitmaps.get(i));
+                }
+            } else {
+                products = new Roaring64Bitmap();
+                bitmaps.forEach(products::or);
+            }
+
+            if (shopId.isPresent()) {
+                products.and(productsByShop.getOrDefault(shopId.get(), EMPTY));
+            }
+            return products;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of one page of products, in ascending order. The first id of the page is
+     * found by rank instead of iterating over the previous pages.
+     */
+    public static Set<Long> page(Roaring64Bitmap products, long offset, int size) {
+        Set<Long> pageIds = new LinkedHashSet<>();
+        if (offset < products.getLongCardinality()) {
+            PeekableLongIterator iterator = products.getLongIterator();
+            iterator.advanceIfNeeded(products.select(offset));
+            while (iterator.hasNext() && pageIds.size() < size) {
+                pageIds.add(iterator.next());
+            }
+        }
+        return pageIds;
+    }
+
+    @PostConstruct
+    public void load() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = productRepository.streamCategoryRelations()) {
+                rows.forEach(row -> add(productsByCategory, (Long) row[0], (Long) row[1]));
+            }
+            try (Stream<Object[]> rows = productRepository.streamShopRelations()) {
+                rows.forEach(row -> add(productsByShop, (Long) row[0], (Long) row[1]));
+            }
+        });
+        productsByCategory.values().forEach(Roaring64Bitmap::runOptimize);
+        productsByShop.values().forEach(Roaring64Bitmap::runOptimize);
+    }
+
+    /**
+     * Indexes the current shop and categories of the product once the current transaction is
+     * committed. The previous categories the product no longer has are dropped, a previous shop
+     * is dropped by removeFromShop.
+     */
+    public void put(Product product, Collection<Long> previousCategoryIds) {
+        long productId = product.getId();
+        Long shopId = product.getShop() != null ? product.getShop().getId() : null;
+        List<Long> categoryIds = product.getCategories().stream().map(Category::getId).toList();
+        List<Long> removedCategoryIds = previousCategoryIds.stream()
+                .filter(categoryId -> !categoryIds.contains(categoryId)).toList();
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                removedCategoryIds.forEach(categoryId -> remove(productsByCategory, categoryId, productId));
+                categoryIds.forEach(categoryId -> add(productsByCategory, categoryId, productId));
+                if (shopId != null) {
+                    add(productsByShop, shopId, productId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Removes the product from its shop and categories once the current transaction is committed.
+     */
+    public void remove(long productId, Long shopId, Collection<Long> categoryIds) {
+        List<Long> removedCategoryIds = List.copyOf(categoryIds);
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                removedCategoryIds.forEach(categoryId -> remove(productsByCategory, categoryId, productId));
+                if (shopId != null) {
+                    remove(productsByShop, shopId, productId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void removeCategory(long categoryId) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                productsByCategory.remove(categoryId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void removeFromShop(long productId, long shopId) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(productsByShop, shopId, productId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void removeShop(long shopId) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                productsByShop.remove(shopId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private static void add(Map<Long, Roaring64Bitmap> bitmaps, long key, long productId) {
+        bitmaps.computeIfAbsent(key, k -> new Roaring64Bitmap()).addLong(productId);
+    }
+
+    private static void remove(Map<Long, Roaring64Bitmap> bitmaps, long key, long productId) {
+        Roaring64Bitmap products = bitmaps.get(key);
+        if (products != null) {
+            products.removeLong(productId);
+        }
+    }
+}
@@ -1,30 +1,48 @@
 package fr.fullstack.shopapp.service;
 
+import fr.fullstack.shopapp.config.CacheConfig;
+import fr.fullstack.shopapp.dto.BatchResult;
+import fr.fullstack.shopapp.exception.VersionConflictException;
 import fr.fullstack.shopapp.model.Category;
-import fr.fullstack.shopapp.model.Product;
 import fr.fullstack.shopapp.repository.CategoryRepository;
+import fr.fullstack.shopapp.repository.ProductRepository;
+import fr.fullstack.shopapp.util.Etags;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class CategoryService {
     @Autowired
     private CategoryRepository categoryRepository;
 
-    @PersistenceContext
-    private EntityManager em;
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ShopService shopService;
+
+    @Autowired
+    private ElasticSearchService elasticSearchService;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private CategoryIndex categoryIndex;
 
     public Category createCategory(Category category) throws Exception {
         try {
-            return categoryRepository.save(category);
+            Category newCategory = categoryRepository.save(category);
+            cacheService.evictCategory(newCategory.getId());
+            return newCategory;
         } catch (Exception e) {
             throw new Exception(e.getMessage());
         }
@@ -37,11 +55,21 @@ public class CategoryService {
             // delete nested relations with products
             deleteNestedRelations(category);
             categoryRepository.deleteById(id);
+            cacheService.evictCategory(id);
         } catch (Exception e) {
             throw new Exception(e.getMessage());
         }
     }
 
+    public String getCategoryEtag(long id) throws Exception {
+        Optional<Long> version = categoryRepository.findVersionById(id);
+        if (version.isEmpty()) {
+            throw new Exception("Category with id " + id + " not found");
+        }
+        return Etags.of(version.get());
+    }
+
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, key = "#id", sync = true)
     public Category getCategoryById(long id) throws Exception {
         try {
             return getCategory(id);
@@ -50,28 +78,41 @@ public class CategoryService {
         }
     }
 
+    public BatchResult<Category> getCategoriesByIds(List<Long> ids) throws Exception {
+        Set<Long> distinctIds = BatchResult.distinctIds(ids);
+        return BatchResult.of(distinctIds, categoryRepository.findAllById(distinctIds), Category::getId);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.CATEGORY_PAGES, key = "#pageable", sync = true)
     public Page<Category> getCategoryList(Pageable pageable) {
         return categoryRepository.findByOrderByIdAsc(pageable);
     }
 
-    public Category updateCategory(Category category) throws Exception {
+    @Transactional
+    public Category updateCategory(Category category, Optional<String> expectedEtag) throws Exception {
         try {
-            getCategory(category.getId());
+            Category existing = getCategory(category.getId());
+            Etags.checkEtag("Category", category.getId(), getCategoryEtag(category.getId()), expectedEtag);
+            // Concurrent updates between this read and the flush are still rejected by the version check
+            category.setVersion(existing.getVersion());
             return this.createCategory(category);
+        } catch (VersionConflictException e) {
+            throw e;
         } catch (Exception e) {
             throw new Exception(e.getMessage());
         }
     }
 
     private void deleteNestedRelations(Category category) {
-        List<Product> products = category.getProducts();
-        for (int i = 0; i < products.size(); i++) {
-            Product product = products.get(i);
-            List<Category> categories = product.getCategories();
-            categories.remove(category);
-            product.setCategories(categories);
-            em.merge(product);
-            em.flush();
+        List<Long> shopIds = productRepository.findShopIdsByCategory(category.getId());
+        List<Long> productIds = productRepository.findIdsByCategory(category.getId());
+        // One statement whatever the number of products, the cached products are evicted with the category
+        categoryRepository.deleteProductRelations(category.getId());
+        categoryIndex.removeCategory(category.getId());
+        elasticSearchService.reindexProducts(productIds);
+        // nbCategories of the shops selling these products changed
+        if (!shopIds.isEmpty()) {
+            shopService.updateCounters(shopIds);
         }
     }
 
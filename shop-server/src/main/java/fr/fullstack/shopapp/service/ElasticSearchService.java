@@ -1,55 +1,361 @@
 package fr.fullstack.shopapp.service;
 
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import org.hibernate.Session;
+import org.hibernate.search.engine.search.aggregation.AggregationKey;
+import org.hibernate.search.engine.search.predicate.dsl.PredicateFinalStep;
+import org.hibernate.search.engine.search.predicate.dsl.SearchPredicateFactory;
+import org.hibernate.search.engine.search.query.SearchQuery;
+import org.hibernate.search.engine.search.query.SearchResult;
+import org.hibernate.search.engine.search.sort.dsl.SortOrder;
 import org.hibernate.search.mapper.orm.Search;
-import org.hibernate.search.mapper.orm.massindexing.MassIndexer;
 import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
+import org.hibernate.search.util.common.data.Range;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import fr.fullstack.shopapp.dto.FacetedPage;
+import fr.fullstack.shopapp.dto.Suggestion;
+import fr.fullstack.shopapp.model.Locale;
+import fr.fullstack.shopapp.model.Product;
 import fr.fullstack.shopapp.model.Shop;
+import fr.fullstack.shopapp.search.LocalizedProductBinder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
-import jakarta.transaction.Transactional;
 
 @Service
 public class ElasticSearchService {
 
+        private static final AggregationKey<Map<Long, Long>> CATEGORIES_FACET = AggregationKey.of("categories");
+
+        private static final AggregationKey<Map<Range<LocalDate>, Long>> CREATED_AT_FACET = AggregationKey
+                        .of("createdAt");
+
+        private static final AggregationKey<Map<Range<Long>, Long>> PRICE_FACET = AggregationKey.of("price");
+
+        private static final Map<String, Range<Long>> PRICE_BUCKETS = new LinkedHashMap<>();
+
+        private static final AggregationKey<Map<Boolean, Long>> VACATIONS_FACET = AggregationKey.of("inVacations");
+
+        static {
+                // Labels in euros, bounds in cents like the indexed price
+                PRICE_BUCKETS.put("0-10", Range.canonical(0L, 1000L));
+                PRICE_BUCKETS.put("10-50", Range.canonical(1000L, 5000L));
+                PRICE_BUCKETS.put("50-100", Range.canonical(5000L, 10000L));
+                PRICE_BUCKETS.put("100+", Range.atLeast(10000L));
+        }
+
+        public static final int MAX_SUGGESTIONS = 20;
+
+        private static final int REINDEX_CHUNK_SIZE = 500;
+
         @PersistenceContext
         private EntityManager entityManager;
 
-        @Transactional
-        public void reindexAll() throws InterruptedException {
-                Session session = entityManager.unwrap(Session.class);
-                SearchSession searchSession = Search.session(session);
+        @Autowired
+        private MeterRegistry meterRegistry;
 
-                MassIndexer indexer = searchSession.massIndexer(Shop.class)
-                                .threadsToLoadObjects(5)
-                                .batchSizeToLoadObjects(25)
-                                .idFetchSize(150);
+        @PostConstruct
+        public void registerMetrics() {
+                Gauge.builder("search.indexing.pending", () -> getIndexingLag().get("pendingEvents"))
+                                .description("Indexing events waiting in the outbox")
+                                .register(meterRegistry);
+                Gauge.builder("search.indexing.lag", () -> getIndexingLag().get("oldestEventAgeMillis"))
+                                .description("Age of the oldest indexing event waiting in the outbox")
+                                .baseUnit("milliseconds")
+                                .register(meterRegistry);
+        }
 
-                indexer.startAndWait();
+        /**
+         * Indexing events waiting in the outbox table: how many, and how long ago the oldest one
+         * became processable. Events are removed once applied to the index.
+         */
+        public Map<String, Long> getIndexingLag() {
+                Object[] row = (Object[]) entityManager
+                                .createNativeQuery("SELECT COUNT(*), MIN(process_after) FROM hsearch_outbox_event")
+                                .getSingleResult();
+                Map<String, Long> lag = new LinkedHashMap<>();
+                lag.put("pendingEvents", ((Number) row[0]).longValue());
+                lag.put("oldestEventAgeMillis", row[1] == null ? 0
+                                : Math.max(0, Duration.between(toInstant(row[1]), Instant.now()).toMillis()));
+                return lag;
         }
 
-        public Page<Shop> searchShops(String searchQuery, Pageable pageable) {
+        /**
+         * Shops matching the name, or all shops when there is no name. With facets, the counts
+         * by vacation status and creation period are computed by the same request. Open shops are
+         * filtered by id when their ids are given, on their indexed opening hours otherwise.
+         */
+        public Page<Shop> searchShops(
+                        Optional<String> searchQuery,
+                        Optional<Boolean> inVacations,
+                        Optional<String> createdBefore,
+                        Optional<String> createdAfter,
+                        Optional<LocalDateTime> openAt,
+                        Optional<Set<Long>> openShopIds,
+                        Sort sort,
+                        boolean facets,
+                        Pageable pageable) {
                 Session session = entityManager.unwrap(Session.class);
                 SearchSession searchSession = Search.session(session);
 
-                String sanitizedSearchQuery = searchQuery.trim();
+                // Filters do not contribute to the score, only the name match does
+                var query = searchSession.search(Shop.class)
+                                .where(f -> f.bool(b -> {
+                                        b.must(searchQuery.isPresent()
+                                                        ? f.match()
+                                                                        .field("name")
+                                                                        .matching(searchQuery.get().trim())
+                                                                        .fuzzy(2)
+                                                        : f.matchAll());
+                                        inVacations.ifPresent(value -> b.filter(f.match()
+                                                        .field("inVacations")
+                                                        .matching(value)));
+                                        createdBefore.ifPresent(value -> b.filter(f.range()
+                                                        .field("createdAt")
+                                                        .atMost(LocalDate.parse(value))));
+                                        createdAfter.ifPresent(value -> b.filter(f.range()
+                                                        .field("createdAt")
+                                                        .atLeast(LocalDate.parse(value))));
+                                        if (openShopIds.isPresent()) {
+                                                b.filter(f.id().matchingAny(openShopIds.get()));
+                                        } else {
+                                                openAt.ifPresent(at -> b.filter(openAt(f, at)));
+                                        }
+                                }))
+                                .sort(f -> f.composite(c -> {
+                                        for (Sort.Order order : sort) {
+                                                c.add(f.field(getSortField(order.getProperty()))
+                                                                .order(order.isAscending() ? SortOrder.ASC
+                                                                                : SortOrder.DESC));
+                                        }
+                                        c.add(f.score());
+                                }));
+
+                if (!facets) {
+                        SearchResult<Shop> result = timed("idx_shops", "search",
+                                        () -> query.fetch((int) pageable.getOffset(), pageable.getPageSize()));
+                        return new PageImpl<>(result.hits(), pageable, result.total().hitCount());
+                }
+
+                Map<String, Range<LocalDate>> createdAtBuckets = getCreatedAtBuckets();
+                SearchQuery<Shop> facetedQuery = query
+                                .aggregation(VACATIONS_FACET, f -> f.terms()
+                                                .field("inVacations_facet", Boolean.class)
+                                                .minDocumentCount(0))
+                                .aggregation(CREATED_AT_FACET, f -> f.range()
+                                                .field("createdAt", LocalDate.class)
+                                                .ranges(createdAtBuckets.values()))
+                                .toQuery();
+                SearchResult<Shop> result = timed("idx_shops", "facets",
+                                () -> facetedQuery.fetch((int) pageable.getOffset(), pageable.getPageSize()));
+
+                Map<String, Map<String, Long>> facetCounts = new LinkedHashMap<>();
+                facetCounts.put("inVacations", toFacet(result.aggregation(VACATIONS_FACET)));
+                facetCounts.put("createdAt", toFacet(createdAtBuckets, result.aggregation(CREATED_AT_FACET)));
+                return new FacetedPage<>(result.hits(), pageable, result.total().hitCount(), facetCounts);
+        }
+
+        /**
+         * Products ranked by relevance of their names and descriptions, in one locale or in all of
+         * them. Names weigh more than descriptions.
+         */
+        public Page<Product> searchProducts(
+                        String searchQuery,
+                        Optional<Locale> locale,
+                        Optional<Long> shopId,
+                        Optional<Long> categoryId,
+                        boolean facets,
+                        Pageable pageable) {
+                SearchSession searchSession = Search.session(entityManager.unwrap(Session.class));
+
+                List<Locale> locales = locale.map(List::of).orElse(List.of(Locale.values()));
+                String[] names = locales.stream().map(LocalizedProductBinder::nameField).toArray(String[]::new);
+                String[] descriptions = locales.stream()
+                                .map(LocalizedProductBinder::descriptionField).toArray(String[]::new);
+
+                var query = searchSession.search(Product.class)
+                                .where(f -> f.bool(b -> {
+                                        b.must(f.match()
+                                                        .fields(names).boost(2)
+                                                        .fields(descriptions)
+                                                        .matching(searchQuery.trim()));
+                                        shopId.ifPresent(value -> b.filter(f.match()
+                                                        .field("shop.id")
+                                                        .matching(value)));
+                                        categoryId.ifPresent(value -> b.filter(f.match()
+                                                        .field("categories.id")
+                                                        .matching(value)));
+                                }));
+
+                if (!facets) {
+                        SearchResult<Product> result = timed("idx_products", "search",
+                                        () -> query.fetch((int) pageable.getOffset(), pageable.getPageSize()));
+                        return new PageImpl<>(result.hits(), pageable, result.total().hitCount());
+                }
 
-                List<Shop> results = searchSession.search(Shop.class)
-                                .where(f -> f.bool()
-                                                .must(f.match()
-                                                                .field("name")
-                                                                .matching(sanitizedSearchQuery)
-                                                                .fuzzy(2)))
-                                .fetch((int) pageable.getOffset(), pageable.getPageSize())
-                                .hits();
+                SearchQuery<Product> facetedQuery = query
+                                .aggregation(CATEGORIES_FACET, f -> f.terms()
+                                                .field("categories.id", Long.class))
+                                .aggregation(PRICE_FACET, f -> f.range()
+                                                .field("price_cents", Long.class)
+                                                .ranges(PRICE_BUCKETS.values()))
+                                .toQuery();
+                SearchResult<Product> result = timed("idx_products", "facets",
+                                () -> facetedQuery.fetch((int) pageable.getOffset(), pageable.getPageSize()));
+
+                Map<String, Map<String, Long>> facetCounts = new LinkedHashMap<>();
+                facetCounts.put("categories", toFacet(result.aggregation(CATEGORIES_FACET)));
+                facetCounts.put("price", toFacet(PRICE_BUCKETS, result.aggregation(PRICE_FACET)));
+                return new FacetedPage<>(result.hits(), pageable, result.total().hitCount(), facetCounts);
+        }
+
+        /**
+         * Type-ahead on shop names. Only the index is read: hits are projected to their id and
+         * name and the total hit count is not computed.
+         */
+        public List<Suggestion> suggestShops(String searchQuery, int size) {
+                SearchSession searchSession = Search.session(entityManager.unwrap(Session.class));
+                SearchQuery<Suggestion> query = searchSession.search(Shop.class)
+                                .select(f -> f.composite()
+                                                .from(f.id(Long.class), f.field("name_suggest", String.class))
+                                                .as(Suggestion::new))
+                                .where(f -> f.match()
+                                                .field("name_suggest")
+                                                .matching(searchQuery.trim())
+                                                .minimumShouldMatchPercent(100))
+                                .toQuery();
+                return timed("idx_shops", "suggest", () -> query.fetchHits(size));
+        }
+
+        /**
+         * Type-ahead on the product names of one locale, read from the index only.
+         */
+        public List<Suggestion> suggestProducts(String searchQuery, Locale locale, int size) {
+                SearchSession searchSession = Search.session(entityManager.unwrap(Session.class));
+                String field = LocalizedProductBinder.nameSuggestField(locale);
+                SearchQuery<Suggestion> query = searchSession.search(Product.class)
+                                .select(f -> f.composite()
+                                                .from(f.id(Long.class), f.field(field, String.class).multi())
+                                                .as((id, names) -> new Suggestion(id, names.get(0))))
+                                .where(f -> f.match()
+                                                .field(field)
+                                                .matching(searchQuery.trim())
+                                                .minimumShouldMatchPercent(100))
+                                .toQuery();
+                return timed("idx_products", "suggest", () -> query.fetchHits(size));
+        }
+
+        /**
+         * Bulk statements bypass Hibernate Search, the products they modified are reindexed here.
+         * They are loaded by chunks and dropped from the session once queued, so a shop or a
+         * category with many products never sits in memory at once. Entities of the caller are
+         * detached too.
+         */
+        public void reindexProducts(Collection<Long> productIds) {
+                SearchIndexingPlan indexingPlan = Search.session(entityManager).indexingPlan();
+                List<Long> ids = new ArrayList<>(productIds);
+                for (int from = 0; from < ids.size(); from += REINDEX_CHUNK_SIZE) {
+                        List<Long> chunk = ids.subList(from, Math.min(from + REINDEX_CHUNK_SIZE, ids.size()));
+                        entityManager.createQuery("SELECT p FROM Product p WHERE p.id IN :ids", Product.class)
+                                        .setParameter("ids", chunk)
+                                        .getResultList()
+                                        .forEach(indexingPlan::addOrUpdate);
+                        indexingPlan.process();
+                        entityManager.flush();
+                        entityManager.clear();
+                }
+        }
+
+        private <T> T timed(String index, String kind, Supplier<T> query) {
+                return Timer.builder("search.query")
+                                .description("Search requests, hits loading included")
+                                .tag("index", index)
+                                .tag("kind", kind)
+                                .publishPercentileHistogram()
+                                .register(meterRegistry)
+                                .record(query);
+        }
+
+        private Map<String, Range<LocalDate>> getCreatedAtBuckets() {
+                LocalDate today = LocalDate.now();
+                Map<String, Range<LocalDate>> buckets = new LinkedHashMap<>();
+                buckets.put("lastWeek", Range.atLeast(today.minusWeeks(1)));
+                buckets.put("lastMonth", Range.canonical(today.minusMonths(1), today.minusWeeks(1)));
+                buckets.put("lastYear", Range.canonical(today.minusYears(1), today.minusMonths(1)));
+                buckets.put("older", Range.lessThan(today.minusYears(1)));
+                return buckets;
+        }
+
+        private <K> Map<String, Long> toFacet(Map<K, Long> counts) {
+                Map<String, Long> facet = new LinkedHashMap<>();
+                counts.forEach((key, count) -> facet.put(String.valueOf(key), count));
+                return facet;
+        }
+
+        private <F> Map<String, Long> toFacet(Map<String, Range<F>> buckets, Map<Range<F>, Long> counts) {
+                Map<String, Long> facet = new LinkedHashMap<>();
+                buckets.forEach((name, range) -> facet.put(name, counts.getOrDefault(range, 0L)));
+                return facet;
+        }
+
+        private Instant toInstant(Object timestamp) {
+                if (timestamp instanceof Instant instant) {
+                        return instant;
+                }
+                if (timestamp instanceof OffsetDateTime offsetDateTime) {
+                        return offsetDateTime.toInstant();
+                }
+                return ((Timestamp) timestamp).toInstant();
+        }
+
+        /**
+         * Same rules as ShopSpecifications.openAt, the overnight flag stands for closeAt < openAt.
+         */
+        private static PredicateFinalStep openAt(SearchPredicateFactory f, LocalDateTime at) {
+                int day = at.getDayOfWeek().getValue();
+                int previousDay = day == 1 ? 7 : day - 1;
+                LocalTime time = at.toLocalTime().truncatedTo(ChronoUnit.MINUTES);
+                return f.nested("openingHours").add(f.or(
+                                f.and(
+                                                f.match().field("openingHours.day").matching(day),
+                                                f.range().field("openingHours.openAt").atMost(time),
+                                                f.or(
+                                                                f.range().field("openingHours.closeAt").greaterThan(time),
+                                                                f.match().field("openingHours.overnight").matching(true))),
+                                f.and(
+                                                f.match().field("openingHours.day").matching(previousDay),
+                                                f.match().field("openingHours.overnight").matching(true),
+                                                f.range().field("openingHours.closeAt").greaterThan(time))));
+        }
 
-                return new PageImpl<>(results, pageable, results.size());
+        private String getSortField(String property) {
+                // Full-text fields cannot be sorted, names are sorted on their keyword copy
+                return property.equals("name") ? "name_sort" : property;
         }
-}
\ No newline at end of file
+}
@@ -0,0 +1,175 @@
+package fr.fullstack.shopapp.service;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import fr.fullstack.shopapp.model.OpeningHoursShop;
+import fr.fullstack.shopapp.model.Shop;
+import fr.fullstack.shopapp.repository.ShopRepository;
+import fr.fullstack.shopapp.util.AfterCommit;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory index of the weekly opening hours of the shops, answering "which shops are open at
+ * this time" without loading any shop. Each shop keeps its opening intervals as sorted minutes
+ * of the week, and each hour of the week keeps the ids of the shops having an interval in that
+ * hour, so a lookup only checks the shops of one hour bucket.
+ */
+@Service
+public class OpeningHoursIndex {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    private static final int HOURS_PER_WEEK = 7 * 24;
+
+    // Shop id -> [start0, end0, start1, end1, ...] half-open intervals in minutes of the week
+    private final Map<Long, int[]> intervalsByShop = new ConcurrentHashMap<>();
+
+    private final List<Set<Long>> shopsByHour = new ArrayList<>(HOURS_PER_WEEK);
+
+    @Autowired
+    private ShopRepository shopRepository;
+
+    public OpeningHoursIndex() {
+        for (int i = 0; i < HOURS_PER_WEEK; i++) {
+            shopsByHour.add(ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    public Set<Long> findOpenShops(LocalDateTime at) {
+        return findOpenShops(at, Integer.MAX_VALUE).get();
+    }
+
+    /**
+     * The shops open at this time, or nothing when there are more than the limit: the caller then
+     * filters on the opening hours themselves instead of sending that many ids to the database.
+     */
+    public Optional<Set<Long>> findOpenShops(LocalDateTime at, int limit) {
+        int minute = (at.getDayOfWeek().getValue() - 1) * MINUTES_PER_DAY + at.getHour() * 60 + at.getMinute();
+        Set<Long> openShops = new HashSet<>();
+        for (Long shopId : shopsByHour.get(minute / 60)) {
+            int[] intervals = intervalsByShop.get(shopId);
+            if (intervals != null && contains(intervals, minute)) {
+                if (openShops.size() == limit) {
+                    return Optional.empty();
+                }
+                openShops.add(shopId);
+            }
+        }
+        return Optional.of(openShops);
+    }
+
+    @PostConstruct
+    public void load() {
+        Map<Long, List<OpeningHoursShop>> openingHoursByShop = new HashMap<>();
+        for (Object[] row : shopRepository.findAllOpeningHours()) {
+            OpeningHoursShop openingHours = new OpeningHoursShop();
+            openingHours.setDay(((Number) row[1]).intValue());
+            openingHours.setOpenAt((LocalTime) row[2]);
+            openingHours.setCloseAt((LocalTime) row[3]);
+            openingHoursByShop.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(openingHours);
+        }
+        openingHoursByShop.forEach(this::index);
+    }
+
+    /**
+     * Indexes the opening hours of the shop once the current transaction is committed.
+     */
+    public void put(Shop shop) {
+        long shopId = shop.getId();
+        List<OpeningHoursShop> openingHours = new ArrayList<>(shop.getOpeningHours());
+        AfterCommit.run(() -> index(shopId, openingHours));
+    }
+
+    /**
+     * Removes the shop from the index once the current transaction is committed.
+     */
+    public void remove(long shopId) {
+        AfterCommit.run(() -> unindex(shopId));
+    }
+
+    private static boolean contains(int[] intervals, int minute) {
+        // Intervals are sorted by start: find the last one starting at or before the minute
+        int low = 0;
+        int high = intervals.length / 2 - 1;
+        int candidate = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (intervals[2 * middle] <= minute) {
+                candidate = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        // Intervals may overlap, so look back while an earlier one could still cover the minute
+        for (int i = candidate; i >= 0; i--) {
+            if (intervals[2 * i + 1] > minute) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void index(long shopId, List<OpeningHoursShop> openingHours) {
+        unindex(shopId);
+
+        List<int[]> intervals = new ArrayList<>();
+        for (OpeningHoursShop slot : openingHours) {
+            int start = (int) (slot.getDay() - 1) * MINUTES_PER_DAY
+                    + slot.getOpenAt().getHour() * 60 + slot.getOpenAt().getMinute();
+            int duration = (slot.getCloseAt().getHour() * 60 + slot.getCloseAt().getMinute())
+                    - (slot.getOpenAt().getHour() * 60 + slot.getOpenAt().getMinute());
+            // A slot closing before it opens ends on the next day, sunday continues on monday
+            if (duration < 0) {
+                duration += MINUTES_PER_DAY;
+            }
+            int end = start + duration;
+            if (end <= MINUTES_PER_WEEK) {
+                intervals.add(new int[] { start, end });
+            } else {
+                intervals.add(new int[] { start, MINUTES_PER_WEEK });
+                intervals.add(new int[] { 0, end - MINUTES_PER_WEEK });
+            }
+        }
+        if (intervals.isEmpty()) {
+            return;
+        }
+        intervals.sort((a, b) -> Integer.compare(a[0], b[0]));
+
+        int[] flat = new int[intervals.size() * 2];
+        for (int i = 0; i < intervals.size(); i++) {
+            int[] interval = intervals.get(i);
+            flat[2 * i] = interval[0];
+            flat[2 * i + 1] = interval[1];
+            for (int hour = interval[0] / 60; hour * 60 < interval[1]; hour++) {
+                shopsByHour.get(hour).add(shopId);
+            }
+        }
+        intervalsByShop.put(shopId, flat);
+    }
+
+    private synchronized void unindex(long shopId) {
+        int[] intervals = intervalsByShop.remove(shopId);
+        if (intervals == null) {
+            return;
+        }
+        for (int i = 0; i < intervals.length; i += 2) {
+            for (int hour = intervals[i] / 60; hour * 60 < intervals[i + 1]; hour++) {
+                shopsByHour.get(hour).remove(shopId);
+            }
+        }
+    }
+}
@@ -1,17 +1,66 @@
 package fr.fullstack.shopapp.service;
 
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.fullstack.shopapp.config.CacheConfig;
+import fr.fullstack.shopapp.dto.BatchResult;
+import fr.fullstack.shopapp.dto.CursorPage;
+import fr.fullstack.shopapp.dto.ImportReport;
+import fr.fullstack.shopapp.dto.ProductView;
+import fr.fullstack.shopapp.dto.Suggestion;
+import fr.fullstack.shopapp.exception.VersionConflictException;
+import fr.fullstack.shopapp.model.Category;
+import fr.fullstack.shopapp.model.Locale;
 import fr.fullstack.shopapp.model.LocalizedProduct;
 import fr.fullstack.shopapp.model.Product;
+import fr.fullstack.shopapp.model.Shop;
+import fr.fullstack.shopapp.repository.CategoryRepository;
 import fr.fullstack.shopapp.repository.ProductRepository;
+import fr.fullstack.shopapp.repository.ProductSpecifications;
+import fr.fullstack.shopapp.repository.ShopRepository;
+import fr.fullstack.shopapp.util.Etags;
+import fr.fullstack.shopapp.util.Keyset;
+import fr.fullstack.shopapp.util.MergePatch;
+import fr.fullstack.shopapp.util.NdjsonExporter;
+import org.hibernate.Hibernate;
+import org.hibernate.search.mapper.orm.Search;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProductService {
@@ -21,59 +70,346 @@ public class ProductService {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ShopService shopService;
+
+    @Autowired
+    private ElasticSearchService elasticSearchService;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private CategoryIndex categoryIndex;
+
+    @Autowired
+    private ShopRepository shopRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${products.import.chunk-size}")
+    private int importChunkSize;
+
     @Transactional
     public Product createProduct(Product product) throws Exception {
-        // Check that product exists at least in french and check name's length
+        return saveProduct(product, List.of());
+    }
+
+    @Transactional
+    public void deleteProductById(long id) throws Exception {
         try {
-            checkLocalizedProducts(product);
+            Product product = getProduct(id);
+            List<Long> categoryIds = getCategoryIds(product);
+            productRepository.deleteById(id);
+            updateShopCounters(product.getShop());
+            cacheService.evictProduct(id);
+            categoryIndex.remove(id, product.getShop() != null ? product.getShop().getId() : null, categoryIds);
         } catch (Exception e) {
             throw new Exception(e.getMessage());
         }
+    }
 
-        try {
-            Product newProduct = productRepository.save(product);
-            em.flush();
-            em.refresh(newProduct);
-            return newProduct;
-        } catch (Exception e) {
-            throw new Exception(e.getMessage());
+    @Transactional(readOnly = true)
+    public void exportProducts(OutputStream output) throws IOException {
+        try (Stream<Product> products = productRepository.streamAll()) {
+            NdjsonExporter.export(products, objectMapper.writerFor(Product.class), output, em);
         }
     }
 
-    public void deleteProductById(long id) throws Exception {
+    @Transactional(readOnly = true)
+    public BatchResult<Product> getProductsByIds(List<Long> ids) throws Exception {
+        Set<Long> distinctIds = BatchResult.distinctIds(ids);
+        return BatchResult.of(distinctIds, fetchProducts(distinctIds), Product::getId);
+    }
+
+    public ProductView getProductViewById(long id, String locale) throws Exception {
+        Optional<ProductView> view = productRepository.findViewById(id, parseLocale(Optional.of(locale)).get().name());
+        if (view.isEmpty()) {
+            throw new Exception("Product with id " + id + " not found");
+        }
+        addCategories(List.of(view.get()));
+        return view.get();
+    }
+
+    public String getProductEtag(long id) throws Exception {
+        List<Object[]> versions = productRepository.findVersionsById(id);
+        if (versions.isEmpty()) {
+            throw new Exception("Product with id " + id + " not found");
+        }
+        return Etags.of(versions.get(0));
+    }
+
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS, key = "#id", sync = true)
+    @Transactional(readOnly = true)
+    public Product getProductById(long id) throws Exception {
         try {
-            getProduct(id);
-            productRepository.deleteById(id);
+            // The cached product is detached: load everything it serializes
+            Product product = getProduct(id);
+            Hibernate.initialize(product.getCategories());
+            Hibernate.initialize(product.getLocalizedProducts());
+            if (product.getShop() != null) {
+                Hibernate.initialize(product.getShop().getOpeningHours());
+            }
+            return product;
         } catch (Exception e) {
             throw new Exception(e.getMessage());
         }
     }
 
-    public Product getProductById(long id) throws Exception {
+    public Page<Product> getShopProductList(
+            Optional<Long> shopId,
+            Optional<Long> categoryId,
+            Optional<BigDecimal> minPrice,
+            Optional<BigDecimal> maxPrice,
+            Optional<String> sortBy,
+            Pageable pageable) throws Exception {
+        Specification<Product> spec = ProductSpecifications.withFilters(
+                shopId, categoryId, toCents(minPrice), toCents(maxPrice));
+        return productRepository.findAll(spec,
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), parseSort(sortBy.orElse("id"))));
+    }
+
+    /**
+     * Same filters as getShopProductList, with each product in a single locale.
+     */
+    public Page<ProductView> getShopProductViewList(
+            Optional<Long> shopId,
+            Optional<Long> categoryId,
+            Optional<BigDecimal> minPrice,
+            Optional<BigDecimal> maxPrice,
+            Optional<String> sortBy,
+            String locale,
+            Pageable pageable) throws Exception {
+        String localeName = parseLocale(Optional.of(locale)).get().name();
+        long minPriceCents = toCents(minPrice).orElse(0L);
+        long maxPriceCents = toCents(maxPrice).orElse(Long.MAX_VALUE);
+        Pageable sortedPageable = PageRequest.of(
+                pageable.getPageNumber(), pageable.getPageSize(), parseSort(sortBy.orElse("id")));
+        Page<ProductView> views;
+        if (shopId.isPresent() && categoryId.isPresent()) {
+            views = productRepository.findViewsByShopAndCategory(
+                    shopId.get(), categoryId.get(), minPriceCents, maxPriceCents, localeName, sortedPageable);
+        } else if (shopId.isPresent()) {
+            views = productRepository.findViewsByShop(
+                    shopId.get(), minPriceCents, maxPriceCents, localeName, sortedPageable);
+        } else {
+            views = productRepository.findViews(minPriceCents, maxPriceCents, localeName, sortedPageable);
+        }
+        addCategories(views.getContent());
+        return views;
+    }
+
+    /**
+     * Products of the shop having all the categories, or any of them. The filter is evaluated on
+     * the in-memory category index, only the products of the requested page are loaded.
+     */
+    @Transactional(readOnly = true)
+    public Page<Product> getShopProductListByCategories(
+            Optional<Long> shopId, List<Long> categoryIds, String match, Pageable pageable) throws Exception {
+        if (categoryIds.isEmpty() || categoryIds.size() > CategoryIndex.MAX_CATEGORIES) {
+            throw new Exception("Between 1 and " + CategoryIndex.MAX_CATEGORIES + " categories must be provided");
+        }
+        if (!match.equals("all") && !match.equals("any")) {
+            throw new Exception("Match must be all or any");
+        }
+
+        Roaring64Bitmap matching = categoryIndex.findProducts(
+                shopId, new LinkedHashSet<>(categoryIds), match.equals("all"));
+        long total = matching.getLongCardinality();
+        Set<Long> pageIds = CategoryIndex.page(matching, pageable.getOffset(), pageable.getPageSize());
+        List<Product> products = pageIds.isEmpty() ? List.of() : fetchProducts(pageIds);
+        return new PageImpl<>(BatchResult.of(pageIds, products, Product::getId).getContent(), pageable, total);
+    }
+
+    public CursorPage<Product> getShopProductListAfter(
+            Optional<Long> shopId,
+            Optional<Long> categoryId,
+            Optional<BigDecimal> minPrice,
+            Optional<BigDecimal> maxPrice,
+            Optional<String> sortBy,
+            String after,
+            int size) throws Exception {
+        Sort sort = parseSort(sortBy.orElse("id"));
+        Sort.Order order = sort.iterator().next();
+        String field = order.getProperty();
+
+        Specification<Product> spec = ProductSpecifications.withFilters(
+                shopId, categoryId, toCents(minPrice), toCents(maxPrice));
+        if (!after.isBlank()) {
+            Keyset keyset = Keyset.decode(after);
+            if (!keyset.getField().equals(field)) {
+                throw new Exception("Cursor does not match sort " + field);
+            }
+            spec = spec.and(Keyset.after(
+                    field, order.getDirection(), parseSortValue(keyset.getValue()), keyset.getId()));
+        }
+
+        // Fetch one extra row to know if there is a next page, without any count query
+        List<Product> products = productRepository.findBy(
+                spec, q -> q.project("shop").sortBy(sort).limit(size + 1).all());
+        if (products.size() <= size) {
+            return new CursorPage<>(products, null);
+        }
+
+        List<Product> content = products.subList(0, size);
+        Product last = content.get(size - 1);
+        Object sortValue = field.equals("id") ? last.getId() : last.getPriceCents();
+        return new CursorPage<>(content, Keyset.encode(field, sortValue, last.getId()));
+    }
+
+    /**
+     * Applies a JSON Merge Patch to the product. Only the changed columns are updated, the
+     * translations are matched by id and the categories by their id, without the save, flush and
+     * refresh of a full update. The shop counters are only recomputed when the shop or the
+     * categories change.
+     */
+    @Transactional
+    public Product patchProduct(long id, JsonNode patch, Optional<String> expectedEtag) throws Exception {
         try {
-            return getProduct(id);
+            Product product = getProduct(id);
+            Etags.checkEtag("Product", id, getProductEtag(id), expectedEtag);
+            Shop previousShop = product.getShop();
+            List<Long> previousCategoryIds = getCategoryIds(product);
+            MergePatch.applyFields(objectMapper, product, patch,
+                    Set.of("id", "version", "shop", "categories", "localizedProducts"));
+            if (patch.has("localizedProducts")) {
+                MergePatch.patchCollection(objectMapper, product.getLocalizedProducts(),
+                        patch.get("localizedProducts"), LocalizedProduct.class, LocalizedProduct::getId,
+                        "localized product");
+            }
+            if (patch.has("shop")) {
+                product.setShop(findPatchedShop(patch.get("shop")));
+            }
+            if (patch.has("categories")) {
+                patchCategories(product, patch.get("categories"));
+            }
+
+            String error = validateProduct(product);
+            if (error != null) {
+                throw new Exception(error);
+            }
+
+            if (patch.has("localizedProducts")) {
+                // Same as updateProduct: translation rows are not part of the product row
+                em.lock(product, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+                Search.session(em).indexingPlan().addOrUpdate(product);
+            }
+            if (patch.has("shop") || patch.has("categories")) {
+                updateShopCounters(product.getShop());
+                if (previousShop != null && previousShop != product.getShop()) {
+                    updateShopCounters(previousShop);
+                    categoryIndex.removeFromShop(id, previousShop.getId());
+                }
+                categoryIndex.put(product, previousCategoryIds);
+            } else if (product.getShop() != null) {
+                cacheService.evictProductPages(product.getShop().getId());
+            }
+            cacheService.evictProduct(id);
+            return product;
+        } catch (VersionConflictException e) {
+            throw e;
         } catch (Exception e) {
             throw new Exception(e.getMessage());
         }
     }
 
-    public Page<Product> getShopProductList(Optional<Long> shopId, Optional<Long> categoryId, Pageable pageable) {
-        if (shopId.isPresent() && categoryId.isPresent()) {
-            return productRepository.findByShopAndCategory(shopId.get(), categoryId.get(), pageable);
+    public Page<Product> searchProducts(
+            String query,
+            Optional<String> locale,
+            Optional<Long> shopId,
+            Optional<Long> categoryId,
+            boolean facets,
+            Pageable pageable) throws Exception {
+        return elasticSearchService.searchProducts(query, parseLocale(locale), shopId, categoryId, facets, pageable);
+    }
+
+    public List<Suggestion> suggestProducts(String query, Optional<String> locale, int size) throws Exception {
+        if (size < 1 || size > ElasticSearchService.MAX_SUGGESTIONS) {
+            throw new Exception("Size must be between 1 and " + ElasticSearchService.MAX_SUGGESTIONS);
         }
+        // Every product has a french name
+        return elasticSearchService.suggestProducts(query, parseLocale(locale).orElse(Locale.FR), size);
+    }
+
+    /**
+     * Imports a JSON array or a NDJSON stream of products. Items are read and validated one at a
+     * time and saved in chunks, each chunk in its own transaction with batched inserts. An invalid
+     * item is reported in the result without aborting the other ones.
+     */
+    public ImportReport importProducts(InputStream input) {
+        ImportReport report = new ImportReport();
+        List<Product> chunk = new ArrayList<>();
+        List<Integer> chunkIndexes = new ArrayList<>();
+        int index = 0;
+
+        try (MappingIterator<Product> iterator = objectMapper.readerFor(Product.class).readValues(input)) {
+            while (iterator.hasNextValue()) {
+                Product product;
+                try {
+                    product = iterator.nextValue();
+                } catch (JsonMappingException e) {
+                    // The iterator skips the rest of the faulty item, the next ones are still read
+                    report.addError(index++, "Malformed product: " + e.getOriginalMessage());
+                    continue;
+                }
+                String error = validateProduct(product);
+                if (error != null) {
+                    report.addError(index, error);
+                } else {
+                    chunk.add(product);
+                    chunkIndexes.add(index);
+                }
+                index++;
 
-        if (shopId.isPresent()) {
-            return productRepository.findByShop(shopId.get(), pageable);
+                if (chunk.size() >= importChunkSize) {
+                    saveChunk(chunk, chunkIndexes, report);
+                    chunk.clear();
+                    chunkIndexes.clear();
+                }
+            }
+        } catch (IOException e) {
+            // The stream cannot be resynchronized after a syntax or I/O error, the remaining items are skipped
+            report.addError(index, "Malformed product: " + e.getMessage());
         }
 
-        return productRepository.findByOrderByIdAsc(pageable);
+        if (!chunk.isEmpty()) {
+            saveChunk(chunk, chunkIndexes, report);
+        }
+        return report;
     }
 
     @Transactional
-    public Product updateProduct(Product product) throws Exception {
+    public Product updateProduct(Product product, Optional<String> expectedEtag) throws Exception {
         try {
-            getProduct(product.getId());
-            return this.createProduct(product);
+            Product existing = getProduct(product.getId());
+            Etags.checkEtag("Product", product.getId(), getProductEtag(product.getId()), expectedEtag);
+            // Concurrent updates between this read and the flush are still rejected by the version check
+            product.setVersion(existing.getVersion());
+            // The product may move to another shop, so the previous one needs its counters updated too
+            Shop previousShop = existing.getShop();
+            // Read before the save, which merges the new categories into the same managed instance
+            List<Long> previousCategoryIds = getCategoryIds(existing);
+            Product updatedProduct = saveProduct(product, previousCategoryIds);
+            // Editing a translation only updates its row, the product version must change all the same
+            em.lock(updatedProduct, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+            if (previousShop != null && (updatedProduct.getShop() == null
+                    || previousShop.getId() != updatedProduct.getShop().getId())) {
+                updateShopCounters(previousShop);
+                categoryIndex.removeFromShop(updatedProduct.getId(), previousShop.getId());
+            }
+            return updatedProduct;
+        } catch (VersionConflictException e) {
+            throw e;
         } catch (Exception e) {
             throw new Exception(e.getMessage());
         }
@@ -89,6 +425,231 @@ public class ProductService {
         }
     }
 
+    /**
+     * Loads the products with everything they serialize: one query with their shop and
+     * translations, one with their categories and one with the opening hours of their shops.
+     */
+    private List<Product> fetchProducts(Collection<Long> ids) {
+        List<Product> products = productRepository.findAllWithTranslationsByIdIn(ids);
+        if (!products.isEmpty()) {
+            productRepository.fetchCategoriesByIdIn(ids);
+            Set<Long> shopIds = products.stream()
+                    .filter(product -> product.getShop() != null)
+                    .map(product -> product.getShop().getId())
+                    .collect(Collectors.toSet());
+            if (!shopIds.isEmpty()) {
+                shopRepository.findAllWithOpeningHoursByIdIn(shopIds);
+            }
+        }
+        return products;
+    }
+
+    private void addCategories(List<ProductView> views) {
+        if (views.isEmpty()) {
+            return;
+        }
+        // One query for the categories of the whole page
+        Map<Long, ProductView> viewsById = views.stream()
+                .collect(Collectors.toMap(ProductView::getId, Function.identity()));
+        for (Object[] row : productRepository.findCategoriesByIds(viewsById.keySet())) {
+            viewsById.get((Long) row[0]).getCategories().add(new ProductView.Reference((Long) row[1], (String) row[2]));
+        }
+    }
+
+    /**
+     * Products are sorted by id or price, the price sort uses the id as tie-breaker like the
+     * (shop_id, price_cents, id) index.
+     */
+    private Sort parseSort(String sortBy) throws Exception {
+        String[] sortParts = sortBy.split(",");
+        Sort.Direction direction = sortParts.length > 1 && sortParts[1].equalsIgnoreCase("desc")
+                ? Sort.Direction.DESC
+                : Sort.Direction.ASC;
+        return switch (sortParts[0]) {
+            case "id" -> Sort.by(direction, "id");
+            case "price" -> Sort.by(direction, "priceCents").and(Sort.by(direction, "id"));
+            default -> throw new Exception("Products can only be sorted by id or price");
+        };
+    }
+
+    private Long parseSortValue(String value) throws Exception {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new Exception("Invalid cursor value " + value);
+        }
+    }
+
+    private Optional<Long> toCents(Optional<BigDecimal> price) throws Exception {
+        try {
+            return price.map(Product::toCents);
+        } catch (IllegalArgumentException e) {
+            throw new Exception(e.getMessage());
+        }
+    }
+
+    private Optional<Locale> parseLocale(Optional<String> locale) throws Exception {
+        try {
+            return locale.map(value -> Locale.valueOf(value.toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            throw new Exception("Locale must be FR or EN");
+        }
+    }
+
+    private Product saveProduct(Product product, Collection<Long> previousCategoryIds) throws Exception {
+        // Check that product exists at least in french and check name's length
+        try {
+            checkLocalizedProducts(product);
+        } catch (Exception e) {
+            throw new Exception(e.getMessage());
+        }
+
+        try {
+            Product newProduct = productRepository.save(product);
+            em.flush();
+            em.refresh(newProduct);
+            // The index only tracks the list of translations, not their texts
+            Search.session(em).indexingPlan().addOrUpdate(newProduct);
+            updateShopCounters(newProduct.getShop());
+            cacheService.evictProduct(newProduct.getId());
+            categoryIndex.put(newProduct, previousCategoryIds);
+            return newProduct;
+        } catch (Exception e) {
+            throw new Exception(e.getMessage());
+        }
+    }
+
+    private static List<Long> getCategoryIds(Product product) {
+        return product.getCategories().stream().map(Category::getId).toList();
+    }
+
+    private void updateShopCounters(Shop shop) {
+        if (shop != null) {
+            shopService.updateCounters(List.of(shop.getId()));
+        }
+    }
+
+    private void persistChunk(List<Product> products) {
+        Set<Long> shopIds = new HashSet<>();
+        for (Product product : products) {
+            // References avoid a select per shop and category, they were checked by saveChunk
+            if (product.getShop() != null) {
+                shopIds.add(product.getShop().getId());
+                product.setShop(em.getReference(Shop.class, product.getShop().getId()));
+            }
+            product.setCategories(product.getCategories().stream()
+                    .map(category -> em.getReference(Category.class, category.getId()))
+                    .collect(Collectors.toList()));
+            em.persist(product);
+            categoryIndex.put(product, List.of());
+        }
+        em.flush();
+
+        if (!shopIds.isEmpty()) {
+            shopService.updateCounters(shopIds);
+        }
+    }
+
+    private void saveChunk(List<Product> products, List<Integer> indexes, ImportReport report) {
+        Set<Long> shopIds = new HashSet<>();
+        Set<Long> categoryIds = new HashSet<>();
+        for (Product product : products) {
+            if (product.getShop() != null) {
+                shopIds.add(product.getShop().getId());
+            }
+            product.getCategories().forEach(category -> categoryIds.add(category.getId()));
+        }
+        Set<Long> knownShopIds = new HashSet<>(
+                shopIds.isEmpty() ? List.of() : shopRepository.findExistingIds(shopIds));
+        Set<Long> knownCategoryIds = new HashSet<>(
+                categoryIds.isEmpty() ? List.of() : categoryRepository.findExistingIds(categoryIds));
+
+        List<Product> validProducts = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            if (product.getShop() != null && !knownShopIds.contains(product.getShop().getId())) {
+                report.addError(indexes.get(i), "Shop with id " + product.getShop().getId() + " not found");
+            } else if (!product.getCategories().stream().allMatch(c -> knownCategoryIds.contains(c.getId()))) {
+                report.addError(indexes.get(i), "Category not found");
+            } else {
+                validProducts.add(product);
+                validIndexes.add(indexes.get(i));
+            }
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try {
+            transactionTemplate.executeWithoutResult(status -> persistChunk(validProducts));
+            report.addImported(validProducts.size());
+        } catch (RuntimeException e) {
+            // Save the items of the failed chunk one by one to find the faulty ones
+            for (int i = 0; i < validProducts.size(); i++) {
+                Product product = validProducts.get(i);
+                product.setId(0);
+                product.getLocalizedProducts().forEach(localizedProduct -> localizedProduct.setId(0));
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persistChunk(List.of(product)));
+                    report.addImported(1);
+                } catch (RuntimeException itemException) {
+                    report.addError(validIndexes.get(i), itemException.getMessage());
+                }
+            }
+        }
+    }
+
+    private String validateProduct(Product product) {
+        Set<ConstraintViolation<Product>> violations = validator.validate(product);
+        if (!violations.isEmpty()) {
+            return violations.stream().map(ConstraintViolation::getMessage).collect(Collectors.joining("; "));
+        }
+        try {
+            checkLocalizedProducts(product);
+            return null;
+        } catch (Exception e) {
+            return e.getMessage();
+        }
+    }
+
+    private void patchCategories(Product product, JsonNode categories) throws Exception {
+        Set<Long> categoryIds = new LinkedHashSet<>();
+        if (!categories.isNull()) {
+            if (!categories.isArray()) {
+                throw new Exception("categories must be an array");
+            }
+            for (JsonNode category : categories) {
+                if (!category.path("id").canConvertToLong()) {
+                    throw new Exception("categories must be an array of objects with an id");
+                }
+                categoryIds.add(category.get("id").asLong());
+            }
+        }
+        Set<Long> missingIds = new HashSet<>(categoryIds);
+        if (!categoryIds.isEmpty()) {
+            missingIds.removeAll(categoryRepository.findExistingIds(categoryIds));
+        }
+        if (!missingIds.isEmpty()) {
+            throw new Exception("Categories " + missingIds + " not found");
+        }
+
+        // Kept categories are left in place, a removal still rewrites the join rows of the product
+        product.getCategories().removeIf(category -> !categoryIds.contains(category.getId()));
+        product.getCategories().forEach(category -> categoryIds.remove(category.getId()));
+        categoryIds.forEach(categoryId -> product.getCategories().add(em.getReference(Category.class, categoryId)));
+    }
+
+    private Shop findPatchedShop(JsonNode shop) throws Exception {
+        if (shop.isNull()) {
+            return null;
+        }
+        if (!shop.path("id").canConvertToLong()) {
+            throw new Exception("shop must be an object with an id");
+        }
+        long shopId = shop.get("id").asLong();
+        return shopRepository.findById(shopId)
+                .orElseThrow(() -> new Exception("Shop with id " + shopId + " not found"));
+    }
+
     private Product getProduct(Long id) throws Exception {
         Optional<Product> product = productRepository.findById(id);
         if (!product.isPresent()) {
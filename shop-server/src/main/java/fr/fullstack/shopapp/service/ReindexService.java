@@ -0,0 +1,341 @@
+package fr.fullstack.shopapp.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.RestClient;
+import org.hibernate.search.backend.elasticsearch.ElasticsearchBackend;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.massindexing.MassIndexer;
+import org.hibernate.search.mapper.pojo.massindexing.MassIndexingMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import fr.fullstack.shopapp.model.Product;
+import fr.fullstack.shopapp.model.Shop;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Rebuilds the search indexes without downtime.
+ * Hibernate Search reads through the idx_*-read alias and writes through idx_*-write.
+ * A reindex creates the next idx_*-NNNNNN index, points the write alias at it so live
+ * changes land there, mass indexes the entities by id ranges, then swaps the read alias and drops
+ * the old index. Each finished id range is checkpointed in the new index metadata, so an
+ * interrupted reindex resumes from the last checkpoint instead of starting over.
+ */
+@Service
+public class ReindexService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReindexService.class);
+
+    private static final Map<String, Class<?>> INDEXES = Map.of(
+            "idx_shops", Shop.class,
+            "idx_products", Product.class);
+
+    @Value("${elasticsearch.reindex.batch-size}")
+    private int batchSize;
+
+    @Value("${elasticsearch.reindex.checkpoint-size}")
+    private long checkpointSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @Value("${elasticsearch.reindex.id-fetch-size}")
+    private int idFetchSize;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${elasticsearch.reindex.threads}")
+    private int threads;
+
+    // Progress of the current or last reindex
+    private final AtomicLong indexed = new AtomicLong();
+
+    private volatile String error;
+
+    private volatile LocalDateTime finishedAt;
+
+    private volatile LocalDateTime startedAt;
+
+    private volatile String status = "IDLE";
+
+    private volatile String targetIndex;
+
+    private final AtomicLong total = new AtomicLong();
+
+    public Set<String> getIndexes() {
+        return INDEXES.keySet();
+    }
+
+    public synchronized void startReindex(Collection<String> indexes) throws Exception {
+        if (status.equals("RUNNING")) {
+            throw new Exception("A reindex is already running on " + targetIndex);
+        }
+        status = "RUNNING";
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        error = null;
+        indexed.set(0);
+        total.set(0);
+        executor.submit(() -> {
+            try {
+                for (String index : indexes) {
+                    Timer.Sample sample = Timer.start(meterRegistry);
+                    String outcome = "FAILED";
+                    try {
+                        reindex(index);
+                        outcome = "COMPLETED";
+                    } finally {
+                        sample.stop(meterRegistry.timer("search.reindex", "index", index, "outcome", outcome));
+                    }
+                }
+                status = "COMPLETED";
+            } catch (Exception e) {
+                LOGGER.error("Reindex of {} failed, it will resume from its last checkpoint", targetIndex, e);
+                error = e.getMessage();
+                status = "FAILED";
+            } finally {
+                finishedAt = LocalDateTime.now();
+            }
+        });
+    }
+
+    public Map<String, Object> getProgress() {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("status", status);
+        progress.put("targetIndex", targetIndex);
+        progress.put("indexed", indexed.get());
+        progress.put("total", total.get());
+        progress.put("startedAt", startedAt);
+        progress.put("finishedAt", finishedAt);
+        progress.put("error", error);
+        return progress;
+    }
+
+    /**
+     * An index is current when no reindex was left half done, the last one completed on the
+     * mapping in use and the index is not empty while entities exist. Later changes reach the
+     * index through the outbox, so no reindex is needed in that case.
+     */
+    public List<String> getOutdatedIndexes() throws IOException {
+        List<String> outdated = new ArrayList<>();
+        for (String index : INDEXES.keySet()) {
+            if (!isIndexCurrent(index)) {
+                outdated.add(index);
+            }
+        }
+        return outdated;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // TOOLS
+
+    private void reindex(String index) throws Exception {
+        Class<?> type = INDEXES.get(index);
+        String readIndex = getAliasedIndex(readAlias(index));
+        String writeIndex = getAliasedIndex(writeAlias(index));
+        if (readIndex == null) {
+            throw new Exception("Index " + readAlias(index) + " does not exist");
+        }
+
+        long checkpoint = 0;
+        if (writeIndex != null && !writeIndex.equals(readIndex)) {
+            // A previous reindex was interrupted, carry on building its index
+            targetIndex = writeIndex;
+            checkpoint = getIndex(writeIndex).path("mappings").path("_meta").path("reindex")
+                    .path("checkpoint").asLong();
+            LOGGER.info("Resuming reindex of {} after id {}", targetIndex, checkpoint);
+        } else {
+            targetIndex = nextIndexName(index, readIndex);
+            createIndexFrom(readIndex, targetIndex);
+            moveAlias(writeAlias(index), readIndex, targetIndex, true);
+            LOGGER.info("Reindexing {} into {}", readIndex, targetIndex);
+        }
+
+        // Entities created after this point are indexed through the outbox on the write alias
+        long maxId = entityManager
+                .createQuery("SELECT COALESCE(MAX(e.id), 0) FROM " + type.getSimpleName() + " e", Long.class)
+                .getSingleResult();
+        for (long from = checkpoint; from < maxId; from += checkpointSize) {
+            MassIndexer indexer = Search.mapping(entityManagerFactory).scope(type).massIndexer()
+                    .threadsToLoadObjects(threads)
+                    .batchSizeToLoadObjects(batchSize)
+                    .idFetchSize(idFetchSize)
+                    .purgeAllOnStart(false)
+                    .dropAndCreateSchemaOnStart(false)
+                    .mergeSegmentsOnFinish(false)
+                    .monitor(new ProgressMonitor());
+            indexer.type(type)
+                    .reindexOnly("e.id > :from and e.id <= :to")
+                    .param("from", from)
+                    .param("to", from + checkpointSize);
+            indexer.startAndWait();
+            writeWatermark(targetIndex, Map.of("checkpoint", Math.min(from + checkpointSize, maxId)));
+        }
+
+        // Restore the default refresh interval before the index starts serving searches
+        perform("PUT", "/" + targetIndex + "/_settings", Map.of("index", Map.of("refresh_interval", "1s")));
+        perform("POST", "/" + targetIndex + "/_refresh", null);
+        ObjectNode mappings = (ObjectNode) getIndex(targetIndex).path("mappings");
+        writeWatermark(targetIndex, Map.of(
+                "completed", true,
+                "mappingHash", hashMapping(mappings),
+                "indexedAt", LocalDateTime.now().toString()));
+
+        moveAlias(readAlias(index), readIndex, targetIndex, false);
+        perform("DELETE", "/" + readIndex, null);
+        LOGGER.info("Reindex of {} completed", targetIndex);
+    }
+
+    private void createIndexFrom(String source, String target) throws IOException {
+        JsonNode index = getIndex(source);
+        ObjectNode mappings = index.path("mappings").deepCopy();
+        mappings.remove("_meta");
+
+        // Refreshes are useless while the index does not serve searches
+        ObjectNode settings = objectMapper.createObjectNode().put("refresh_interval", "-1");
+        JsonNode sourceSettings = index.path("settings").path("index");
+        for (String setting : new String[] { "number_of_shards", "number_of_replicas", "analysis" }) {
+            if (sourceSettings.has(setting)) {
+                settings.set(setting, sourceSettings.get(setting));
+            }
+        }
+        perform("PUT", "/" + target, Map.of("mappings", mappings, "settings", Map.of("index", settings)));
+    }
+
+    private String getAliasedIndex(String alias) throws IOException {
+        JsonNode indexes = perform("GET", "/_alias/" + alias, null);
+        Iterator<String> names = indexes == null ? null : indexes.fieldNames();
+        return names == null || !names.hasNext() ? null : names.next();
+    }
+
+    private JsonNode getIndex(String name) throws IOException {
+        return perform("GET", "/" + name, null).path(name);
+    }
+
+    private String hashMapping(JsonNode mappings) {
+        // Elasticsearch returns the properties sorted by name, their text is stable
+        return DigestUtils.md5DigestAsHex(mappings.path("properties").toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void moveAlias(String alias, String from, String to, boolean isWriteIndex) throws IOException {
+        // Both actions are applied atomically, the alias always points to exactly one index
+        perform("POST", "/_aliases", Map.of("actions", new Object[] {
+                Map.of("remove", Map.of("index", from, "alias", alias)),
+                Map.of("add", Map.of("index", to, "alias", alias, "is_write_index", isWriteIndex)) }));
+    }
+
+    private boolean isIndexCurrent(String index) throws IOException {
+        String readIndex = getAliasedIndex(readAlias(index));
+        if (readIndex == null || !readIndex.equals(getAliasedIndex(writeAlias(index)))) {
+            return false;
+        }
+        JsonNode mappings = getIndex(readIndex).path("mappings");
+        JsonNode watermark = mappings.path("_meta").path("reindex");
+        if (!watermark.path("completed").asBoolean()
+                || !watermark.path("mappingHash").asText().equals(hashMapping(mappings))) {
+            return false;
+        }
+        long count = entityManager
+                .createQuery("SELECT COUNT(e) FROM " + INDEXES.get(index).getSimpleName() + " e", Long.class)
+                .getSingleResult();
+        return count == 0 || perform("GET", "/" + readAlias(index) + "/_count", null).path("count").asLong() > 0;
+    }
+
+    private String nextIndexName(String index, String current) {
+        int number = Integer.parseInt(current.substring(current.lastIndexOf('-') + 1));
+        return String.format("%s-%06d", index, number + 1);
+    }
+
+    private JsonNode perform(String method, String endpoint, Object body) throws IOException {
+        RestClient client = Search.mapping(entityManagerFactory).backend()
+                .unwrap(ElasticsearchBackend.class).client(RestClient.class);
+        Request request = new Request(method, endpoint);
+        if (body != null) {
+            request.setJsonEntity(objectMapper.writeValueAsString(body));
+        }
+        try {
+            return objectMapper.readTree(client.performRequest(request).getEntity().getContent());
+        } catch (ResponseException e) {
+            if (e.getResponse().getStatusLine().getStatusCode() == 404) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private String readAlias(String index) {
+        return index + "-read";
+    }
+
+    private String writeAlias(String index) {
+        return index + "-write";
+    }
+
+    private void writeWatermark(String index, Map<String, Object> watermark) throws IOException {
+        perform("PUT", "/" + index + "/_mapping", Map.of("_meta", Map.of("reindex", watermark)));
+    }
+
+    private class ProgressMonitor implements MassIndexingMonitor {
+        @Override
+        public void addToTotalCount(long count) {
+            total.addAndGet(count);
+        }
+
+        @Override
+        public void documentsAdded(long count) {
+            indexed.addAndGet(count);
+        }
+
+        @Override
+        public void documentsBuilt(long count) {
+        }
+
+        @Override
+        public void entitiesLoaded(long count) {
+        }
+
+        @Override
+        public void indexingCompleted() {
+        }
+    }
+}
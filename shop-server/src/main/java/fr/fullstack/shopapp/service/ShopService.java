@@ -1,13 +1,23 @@
 package fr.fullstack.shopapp.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.hibernate.Hibernate;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -15,31 +25,72 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import fr.fullstack.shopapp.model.Product;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import fr.fullstack.shopapp.config.CacheConfig;
+import fr.fullstack.shopapp.dto.BatchResult;
+import fr.fullstack.shopapp.dto.CursorPage;
+import fr.fullstack.shopapp.dto.Suggestion;
+import fr.fullstack.shopapp.exception.VersionConflictException;
+import fr.fullstack.shopapp.model.OpeningHoursShop;
 import fr.fullstack.shopapp.model.Shop;
+import fr.fullstack.shopapp.repository.ProductRepository;
 import fr.fullstack.shopapp.repository.ShopRepository;
+import fr.fullstack.shopapp.repository.ShopSpecifications;
+import fr.fullstack.shopapp.util.Etags;
+import fr.fullstack.shopapp.util.Keyset;
+import fr.fullstack.shopapp.util.MergePatch;
+import fr.fullstack.shopapp.util.NdjsonExporter;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import jakarta.persistence.PersistenceContext;
-import jakarta.persistence.criteria.Predicate;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 
 @Service
 public class ShopService {
+    private static final Set<String> KEYSET_FIELDS = Set.of("id", "name", "createdAt", "nbProducts");
+
     @PersistenceContext
     private EntityManager em;
 
     @Autowired
     private ShopRepository shopRepository;
 
+    @Autowired
+    private ProductRepository productRepository;
+
     @Autowired
     private ElasticSearchService elasticSearchService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private OpeningHoursIndex openingHoursIndex;
+
+    @Value("${shops.open-at.max-ids}")
+    private int openAtMaxIds;
+
+    @Autowired
+    private CategoryIndex categoryIndex;
+
+    @Autowired
+    private Validator validator;
+
     @Transactional
     public Shop createShop(Shop shop) throws Exception {
         try {
             Shop newShop = shopRepository.save(shop);
-            // Refresh the entity after the save. Otherwise, @Formula does not work.
+            // Refresh the entity after the save to read the counters maintained by the database
             em.flush();
             em.refresh(newShop);
+            cacheService.evictShop(newShop.getId());
+            openingHoursIndex.put(newShop);
             return newShop;
         } catch (Exception e) {
             throw new Exception(e.getMessage());
@@ -53,46 +104,46 @@ public class ShopService {
             // delete nested relations with products
             deleteNestedRelations(shop);
             shopRepository.deleteById(id);
+            cacheService.evictShop(id);
+            openingHoursIndex.remove(id);
         } catch (Exception e) {
             throw new Exception(e.getMessage());
         }
     }
 
+    @Transactional(readOnly = true)
+    public void exportShops(OutputStream output) throws IOException {
+        try (Stream<Shop> shops = shopRepository.streamAll()) {
+            NdjsonExporter.export(shops, objectMapper.writerFor(Shop.class), output, em);
+        }
+    }
+
+    public String getShopEtag(long id) throws Exception {
+        Optional<Long> version = shopRepository.findVersionById(id);
+        if (version.isEmpty()) {
+            throw new Exception("Shop with id " + id + " not found");
+        }
+        return Etags.of(version.get());
+    }
+
+    @Cacheable(cacheNames = CacheConfig.SHOPS, key = "#id", sync = true)
+    @Transactional(readOnly = true)
     public Shop getShopById(long id) throws Exception {
         try {
-            return getShop(id);
+            // The cached shop is detached: load the opening hours it serializes
+            Shop shop = getShop(id);
+            Hibernate.initialize(shop.getOpeningHours());
+            return shop;
         } catch (Exception e) {
             throw new Exception(e.getMessage());
         }
     }
 
-    // public Page<Shop> getShopList(
-    // Optional<String> sortBy,
-    // Optional<Boolean> inVacations,
-    // Optional<String> createdBefore,
-    // Optional<String> createdAfter,
-    // Optional<String> label,
-    // Pageable pageable) {
-
-    // // SORT
-    // if (sortBy.isPresent()) {
-    // return switch (sortBy.get()) {
-    // case "name" -> shopRepository.findByOrderByNameAsc(pageable);
-    // case "createdAt" -> shopRepository.findByOrderByCreatedAtAsc(pageable);
-    // default -> shopRepository.findByOrderByNbProductsAsc(pageable);
-    // };
-    // }
-
-    // // FILTERS
-    // Page<Shop> shopList = getShopListWithFilter(inVacations, createdBefore,
-    // createdAfter, label, pageable);
-    // if (shopList != null) {
-    // return shopList;
-    // }
-
-    // // NONE
-    // return shopRepository.findByOrderByIdAsc(pageable);
-    // }
+    @Transactional(readOnly = true)
+    public BatchResult<Shop> getShopsByIds(List<Long> ids) throws Exception {
+        Set<Long> distinctIds = BatchResult.distinctIds(ids);
+        return BatchResult.of(distinctIds, shopRepository.findAllWithOpeningHoursByIdIn(distinctIds), Shop::getId);
+    }
 
     public Page<Shop> getShopList(
             Optional<String> sortBy,
@@ -100,93 +151,177 @@ public class ShopService {
             Optional<String> createdBefore,
             Optional<String> createdAfter,
             Optional<String> label,
+            Optional<LocalDateTime> openAt,
+            boolean facets,
             Pageable pageable) {
+        // Above the limit the shops are filtered on their opening hours instead of their ids
+        Optional<Set<Long>> openShopIds = openAt.flatMap(at -> openingHoursIndex.findOpenShops(at, openAtMaxIds));
+        if (openShopIds.isPresent() && openShopIds.get().isEmpty()) {
+            return Page.empty(pageable);
+        }
 
+        // Facets are only computed by the search backend
+        if (label.isPresent() || facets) {
+            Sort sort = sortBy.isPresent() ? parseSort(sortBy.get()) : Sort.unsorted();
+            return elasticSearchService.searchShops(
+                    label, inVacations, createdBefore, createdAfter, openAt, openShopIds, sort, facets, pageable);
+        }
+
+        Specification<Shop> spec = ShopSpecifications.withFilters(inVacations, createdBefore, createdAfter);
+        if (openShopIds.isPresent()) {
+            spec = spec.and(ShopSpecifications.withIds(openShopIds.get()));
+        } else if (openAt.isPresent()) {
+            spec = spec.and(ShopSpecifications.openAt(openAt.get()));
+        }
+
+        Pageable finalPageable = pageable;
+        if (sortBy.isPresent()) {
+            finalPageable = PageRequest.of(
+                    pageable.getPageNumber(),
+                    pageable.getPageSize(),
+                    parseSort(sortBy.get()));
+        }
+
+        return shopRepository.findAll(spec, finalPageable);
+    }
+
+    public CursorPage<Shop> getShopListAfter(
+            Optional<String> sortBy,
+            Optional<Boolean> inVacations,
+            Optional<String> createdBefore,
+            Optional<String> createdAfter,
+            Optional<String> label,
+            Optional<LocalDateTime> openAt,
+            String after,
+            int size) throws Exception {
         if (label.isPresent()) {
-            Pageable searchPageable = pageable;
-            if (sortBy.isPresent()) {
-                String[] sortParts = sortBy.get().split(",");
-                String field = sortParts[0];
-                Sort.Direction direction = sortParts.length > 1 && sortParts[1].equalsIgnoreCase("desc")
-                        ? Sort.Direction.DESC
-                        : Sort.Direction.ASC;
-                searchPageable = PageRequest.of(
-                        pageable.getPageNumber(),
-                        pageable.getPageSize(),
-                        Sort.by(direction, field));
-            }
-            Page<Shop> elasticResults = elasticSearchService.searchShops(label.get(), searchPageable);
-            System.out.println("Elastic Results : " + elasticResults.getContent().size() + " for label " + label.get());
-
-            List<Shop> filteredResults = elasticResults.getContent().stream()
-                    .filter(shop -> inVacations.isEmpty() || shop.getInVacations() == (inVacations.get()))
-                    .filter(shop -> createdAfter.isEmpty() ||
-                            !shop.getCreatedAt().isBefore(LocalDate.parse(createdAfter.get())))
-                    .filter(shop -> createdBefore.isEmpty() ||
-                            !shop.getCreatedAt().isAfter(LocalDate.parse(createdBefore.get())))
-                    .toList();
-
-            return new PageImpl<>(filteredResults, pageable, elasticResults.getTotalElements());
+            throw new Exception("Cursor pagination is not available with a label search");
         }
 
-        Specification<Shop> spec = (root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
+        Sort sort = parseSort(sortBy.orElse("id"));
+        Sort.Order order = sort.iterator().next();
+        String field = order.getProperty();
+        if (!KEYSET_FIELDS.contains(field)) {
+            throw new Exception("Cursor pagination is not available when sorting by " + field);
+        }
 
-            if (inVacations.isPresent()) {
-                predicates.add(inVacations.get()
-                        ? cb.isTrue(root.get("inVacations"))
-                        : cb.isFalse(root.get("inVacations")));
+        Specification<Shop> spec = ShopSpecifications.withFilters(inVacations, createdBefore, createdAfter);
+        if (openAt.isPresent()) {
+            Optional<Set<Long>> openShopIds = openingHoursIndex.findOpenShops(openAt.get(), openAtMaxIds);
+            spec = spec.and(openShopIds.isPresent()
+                    ? ShopSpecifications.withIds(openShopIds.get())
+                    : ShopSpecifications.openAt(openAt.get()));
+        }
+        if (!after.isBlank()) {
+            Keyset keyset = Keyset.decode(after);
+            if (!keyset.getField().equals(field)) {
+                throw new Exception("Cursor does not match sort " + field);
             }
+            spec = spec.and(Keyset.after(
+                    field, order.getDirection(), parseSortValue(field, keyset.getValue()), keyset.getId()));
+        }
 
-            if (createdBefore.isPresent()) {
-                LocalDate ld = LocalDate.parse(createdBefore.get());
-                predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), ld));
-            }
+        // Fetch one extra row to know if there is a next page, without any count query
+        Sort keysetSort = field.equals("id") ? sort : sort.and(Sort.by(order.getDirection(), "id"));
+        List<Shop> shops = shopRepository.findBy(spec, q -> q.sortBy(keysetSort).limit(size + 1).all());
+        if (shops.size() <= size) {
+            return new CursorPage<>(shops, null);
+        }
+
+        List<Shop> content = shops.subList(0, size);
+        Shop last = content.get(size - 1);
+        return new CursorPage<>(content, Keyset.encode(field, getSortValue(last, field), last.getId()));
+    }
 
-            if (createdAfter.isPresent()) {
-                LocalDate ld = LocalDate.parse(createdAfter.get());
-                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), ld));
+    /**
+     * Applies a JSON Merge Patch to the shop. Only the changed columns are updated and the opening
+     * hours are matched by id, without the save, flush and refresh of a full update.
+     */
+    @Transactional
+    public Shop patchShop(long id, JsonNode patch, Optional<String> expectedEtag) throws Exception {
+        try {
+            Shop shop = getShop(id);
+            Etags.checkEtag("Shop", id, getShopEtag(id), expectedEtag);
+            MergePatch.applyFields(objectMapper, shop, patch,
+                    Set.of("id", "version", "createdAt", "nbProducts", "nbCategories", "openingHours"));
+            if (patch.has("openingHours")) {
+                MergePatch.patchCollection(objectMapper, shop.getOpeningHours(), patch.get("openingHours"),
+                        OpeningHoursShop.class, OpeningHoursShop::getId, "opening hours");
             }
 
-            return cb.and(predicates.toArray(new Predicate[0]));
-        };
+            Set<ConstraintViolation<Shop>> violations = validator.validate(shop);
+            if (!violations.isEmpty()) {
+                throw new Exception(violations.stream()
+                        .map(ConstraintViolation::getMessage).collect(Collectors.joining("; ")));
+            }
 
-        Pageable finalPageable = pageable;
-        if (sortBy.isPresent()) {
-            String[] sortParts = sortBy.get().split(",");
-            String field = sortParts[0];
-            Sort.Direction direction = sortParts.length > 1 && sortParts[1].equalsIgnoreCase("desc")
-                    ? Sort.Direction.DESC
-                    : Sort.Direction.ASC;
-            finalPageable = PageRequest.of(
-                    pageable.getPageNumber(),
-                    pageable.getPageSize(),
-                    Sort.by(direction, field));
+            if (patch.has("openingHours")) {
+                // Editing an opening hours slot only updates its own row, the shop version must change all the same
+                em.lock(shop, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+                // and so must its document, the slots have no link back to the shop to trigger it
+                Search.session(em).indexingPlan().addOrUpdate(shop);
+                openingHoursIndex.put(shop);
+            }
+            cacheService.evictShop(id);
+            return shop;
+        } catch (VersionConflictException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new Exception(e.getMessage());
         }
+    }
 
-        return shopRepository.findAll(spec, finalPageable);
+    public List<Suggestion> suggestShops(String query, int size) throws Exception {
+        if (size < 1 || size > ElasticSearchService.MAX_SUGGESTIONS) {
+            throw new Exception("Size must be between 1 and " + ElasticSearchService.MAX_SUGGESTIONS);
+        }
+        return elasticSearchService.suggestShops(query, size);
     }
 
     @Transactional
-    public Shop updateShop(Shop shop) throws Exception {
+    public Shop updateShop(Shop shop, Optional<String> expectedEtag) throws Exception {
         try {
-            getShop(shop.getId());
-            return this.createShop(shop);
+            Shop existing = getShop(shop.getId());
+            Etags.checkEtag("Shop", shop.getId(), getShopEtag(shop.getId()), expectedEtag);
+            // Concurrent updates between this read and the flush are still rejected by the version check
+            shop.setVersion(existing.getVersion());
+            Shop updatedShop = this.createShop(shop);
+            // Editing an opening hours slot only updates its own row, the shop version must change all the same
+            em.lock(updatedShop, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+            Search.session(em).indexingPlan().addOrUpdate(updatedShop);
+            return updatedShop;
+        } catch (VersionConflictException e) {
+            throw e;
         } catch (Exception e) {
             throw new Exception(e.getMessage());
         }
     }
 
-    private void deleteNestedRelations(Shop shop) {
-        List<Product> products = shop.getProducts();
-        for (int i = 0; i < products.size(); i++) {
-            Product product = products.get(i);
-            product.setShop(null);
-            em.merge(product);
-            em.flush();
+    @Transactional
+    public void updateCounters(Collection<Long> shopIds) {
+        shopRepository.updateCounters(shopIds);
+        // The counters are written by a native statement: reload the shops and reindex them,
+        // nbProducts being sortable in the search index
+        SearchIndexingPlan indexingPlan = Search.session(em).indexingPlan();
+        for (Long shopId : shopIds) {
+            Shop shop = em.find(Shop.class, shopId);
+            if (shop != null) {
+                em.refresh(shop);
+                indexingPlan.addOrUpdate(shop);
+            }
+            cacheService.evictShop(shopId);
         }
     }
 
+    private void deleteNestedRelations(Shop shop) {
+        List<Long> productIds = productRepository.findIdsByShop(shop.getId());
+        // One statement whatever the number of products, the cached products are evicted with the shop
+        productRepository.detachFromShop(shop.getId());
+        categoryIndex.removeShop(shop.getId());
+        shopRepository.updateCounters(List.of(shop.getId()));
+        elasticSearchService.reindexProducts(productIds);
+    }
+
     private Shop getShop(Long id) throws Exception {
         Optional<Shop> shop = shopRepository.findById(id);
         if (!shop.isPresent()) {
@@ -195,67 +330,33 @@ public class ShopService {
         return shop.get();
     }
 
-    private Page<Shop> getShopListWithFilter(
-            Optional<Boolean> inVacations,
-            Optional<String> createdAfter,
-            Optional<String> createdBefore,
-            Optional<String> label,
-            Pageable pageable) {
-
-        // If label is present, use Hibernate Search
-        if (label.isPresent()) {
-            Page<Shop> allResults = elasticSearchService.searchShops(label.get(), pageable);
-
-            // Apply other filters manually
-            List<Shop> filteredResults = allResults.stream()
-                    .filter(shop -> inVacations.isEmpty() || shop.getInVacations() == inVacations.get())
-                    .filter(shop -> createdAfter.isEmpty() ||
-                            !shop.getCreatedAt().isBefore(LocalDate.parse(createdAfter.get())))
-                    .filter(shop -> createdBefore.isEmpty() ||
-                            !shop.getCreatedAt().isAfter(LocalDate.parse(createdBefore.get())))
-                    .toList();
-
-            int start = (int) pageable.getOffset();
-            int end = Math.min(start + pageable.getPageSize(), filteredResults.size());
-
-            List<Shop> paginatedResults = filteredResults.subList(
-                    Math.min(start, filteredResults.size()),
-                    end);
+    private Object getSortValue(Shop shop, String field) {
+        return switch (field) {
+            case "name" -> shop.getName();
+            case "createdAt" -> shop.getCreatedAt();
+            case "nbProducts" -> shop.getNbProducts();
+            default -> shop.getId();
+        };
+    }
 
-            return new PageImpl<>(paginatedResults, pageable, filteredResults.size());
-        }
+    private Sort parseSort(String sortBy) {
+        String[] sortParts = sortBy.split(",");
+        String field = sortParts[0];
+        Sort.Direction direction = sortParts.length > 1 && sortParts[1].equalsIgnoreCase("desc")
+                ? Sort.Direction.DESC
+                : Sort.Direction.ASC;
+        return Sort.by(direction, field);
+    }
 
-        if (inVacations.isPresent() && createdBefore.isPresent() && createdAfter.isPresent()) {
-            return shopRepository.findByInVacationsAndCreatedAtGreaterThanAndCreatedAtLessThan(
-                    inVacations.get(),
-                    LocalDate.parse(createdAfter.get()),
-                    LocalDate.parse(createdBefore.get()),
-                    pageable);
-        }
-        if (inVacations.isPresent() && createdBefore.isPresent()) {
-            return shopRepository.findByInVacationsAndCreatedAtLessThan(
-                    inVacations.get(), LocalDate.parse(createdBefore.get()), pageable);
-        }
-        if (inVacations.isPresent() && createdAfter.isPresent()) {
-            return shopRepository.findByInVacationsAndCreatedAtGreaterThan(
-                    inVacations.get(), LocalDate.parse(createdAfter.get()), pageable);
-        }
-        if (inVacations.isPresent()) {
-            return shopRepository.findByInVacations(inVacations.get(), pageable);
-        }
-        if (createdBefore.isPresent() && createdAfter.isPresent()) {
-            return shopRepository.findByCreatedAtBetween(
-                    LocalDate.parse(createdAfter.get()), LocalDate.parse(createdBefore.get()), pageable);
-        }
-        if (createdBefore.isPresent()) {
-            return shopRepository.findByCreatedAtLessThan(
-                    LocalDate.parse(createdBefore.get()), pageable);
-        }
-        if (createdAfter.isPresent()) {
-            return shopRepository.findByCreatedAtGreaterThan(
-                    LocalDate.parse(createdAfter.get()), pageable);
+    private Comparable<?> parseSortValue(String field, String value) throws Exception {
+        try {
+            return switch (field) {
+                case "name" -> value;
+                case "createdAt" -> LocalDate.parse(value);
+                default -> Long.valueOf(value);
+            };
+        } catch (RuntimeException e) {
+            throw new Exception("Invalid cursor value " + value);
         }
-
-        return null;
     }
 }
@@ -0,0 +1,37 @@
+package fr.fullstack.shopapp.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers in-memory updates (caches, indexes) until the current transaction is committed, so that
+ * they never expose a write that is rolled back afterwards.
+ */
+public class AfterCommit {
+
+    /**
+     * Runs the action once the current transaction is committed, or right away outside of a transaction.
+     */
+    public static void run(Runnable action) {
+        if (!defer(action)) {
+            action.run();
+        }
+    }
+
+    /**
+     * Registers the action to run once the current transaction is committed, returns false when
+     * there is no transaction to wait for.
+     */
+    public static boolean defer(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+        return true;
+    }
+}
@@ -0,0 +1,42 @@
+package fr.fullstack.shopapp.util;
+
+import java.util.Optional;
+import java.util.StringJoiner;
+
+import fr.fullstack.shopapp.exception.VersionConflictException;
+
+/**
+ * Strong ETags built from entity versions: "3" for a shop or a category, "3-7-12-2" for a
+ * product whose representation also depends on its shop and categories. If-Match on updates
+ * is compared with the whole ETag, a stale shop or category part fails the precondition too.
+ */
+public class Etags {
+
+    public static String of(Object... versions) {
+        StringJoiner etag = new StringJoiner("-", "\"", "\"");
+        for (Object version : versions) {
+            etag.add(String.valueOf(version));
+        }
+        return etag.toString();
+    }
+
+    public static void checkEtag(String entity, long id, String current, Optional<String> expected)
+            throws VersionConflictException {
+        if (expected.isPresent() && !expected.get().equals(current)) {
+            throw new VersionConflictException(entity + " with id " + id + " has ETag " + current
+                    + ", not " + expected.get());
+        }
+    }
+
+    public static Optional<String> parseIfMatch(Optional<String> ifMatch) throws Exception {
+        if (ifMatch.isEmpty() || ifMatch.get().trim().equals("*")) {
+            return Optional.empty();
+        }
+        String etag = ifMatch.get().trim();
+        // Only the strong ETags built by of() can match
+        if (etag.length() < 2 || !etag.startsWith("\"") || !etag.endsWith("\"")) {
+            throw new Exception("Invalid If-Match " + etag);
+        }
+        return Optional.of(etag);
+    }
+}
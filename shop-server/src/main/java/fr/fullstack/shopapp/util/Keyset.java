@@ -0,0 +1,75 @@
+package fr.fullstack.shopapp.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Opaque cursor used by the keyset (seek) pagination mode.
+ * A cursor holds the sort field, the value of that field for the last row of
+ * the previous page and the id of that row, used as tie-breaker.
+ */
+public class Keyset {
+    private static final String SEPARATOR = "|";
+
+    private final String field;
+
+    private final long id;
+
+    private final String value;
+
+    private Keyset(String field, long id, String value) {
+        this.field = field;
+        this.id = id;
+        this.value = value;
+    }
+
+    public static Keyset decode(String token) throws Exception {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\" + SEPARATOR, 3);
+            return new Keyset(parts[0], Long.parseLong(parts[1]), parts[2]);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new Exception("Invalid cursor " + token);
+        }
+    }
+
+    public static String encode(String field, Object value, long id) {
+        String raw = field + SEPARATOR + id + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Rows strictly after (field, id) in the given direction:
+     * field > value OR (field = value AND id > lastId), reversed for DESC.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static <T> Specification<T> after(
+            String field, Sort.Direction direction, Comparable value, long id) {
+        return (root, query, cb) -> {
+            boolean asc = direction.isAscending();
+            if (field.equals("id")) {
+                return asc ? cb.greaterThan(root.get("id"), id) : cb.lessThan(root.get("id"), id);
+            }
+            return cb.or(
+                    asc ? cb.greaterThan(root.get(field), value) : cb.lessThan(root.get(field), value),
+                    cb.and(
+                            cb.equal(root.get(field), value),
+                            asc ? cb.greaterThan(root.get("id"), id) : cb.lessThan(root.get("id"), id)));
+        };
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
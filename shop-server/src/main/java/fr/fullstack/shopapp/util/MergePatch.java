@@ -0,0 +1,100 @@
+package fr.fullstack.shopapp.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Applies JSON Merge Patch documents (RFC 7396) to managed entities. Only the members present in
+ * the patch are written, so Hibernate only updates the columns whose value actually changed.
+ */
+public class MergePatch {
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    /**
+     * Applies the members of the patch to the entity through its JSON setters, except the
+     * excluded ones: read-only members and the ones the caller patches itself. Unknown members
+     * are rejected rather than ignored, a misspelled one would otherwise be a silent no-op.
+     */
+    public static void applyFields(ObjectMapper objectMapper, Object entity, JsonNode patch, Set<String> excluded)
+            throws Exception {
+        if (!patch.isObject()) {
+            throw new Exception("The patch must be a JSON object");
+        }
+        ObjectNode fields = ((ObjectNode) patch).deepCopy();
+        fields.remove(excluded);
+        update(objectMapper, entity, fields, "");
+    }
+
+    /**
+     * Applies an array member of the patch to a child collection, matching the elements by id:
+     * an element with the id of an existing child patches it in place, an element without id
+     * is added, and the children left out are removed. Unchanged children are left untouched
+     * instead of being deleted and inserted again.
+     */
+    public static <T> void patchCollection(
+            ObjectMapper objectMapper,
+            List<T> children,
+            JsonNode elements,
+            Class<T> type,
+            ToLongFunction<T> idOf,
+            String name) throws Exception {
+        if (elements.isNull()) {
+            children.clear();
+            return;
+        }
+        if (!elements.isArray()) {
+            throw new Exception(name + " must be an array");
+        }
+
+        Map<Long, T> leftOut = new HashMap<>();
+        children.forEach(child -> leftOut.put(idOf.applyAsLong(child), child));
+        List<T> added = new ArrayList<>();
+        for (JsonNode element : elements) {
+            if (!element.isObject()) {
+                throw new Exception(name + " must be an array of objects");
+            }
+            JsonNode id = element.get("id");
+            if (id == null || id.isNull()) {
+                added.add(read(objectMapper, element, type, " of " + name));
+                continue;
+            }
+            T child = leftOut.remove(id.asLong());
+            if (child == null) {
+                throw new Exception("Unknown " + name + " with id " + id.asLong());
+            }
+            update(objectMapper, child, element, " of " + name);
+        }
+        children.removeIf(child -> leftOut.containsKey(idOf.applyAsLong(child)));
+        children.addAll(added);
+    }
+
+    private static <T> T read(ObjectMapper objectMapper, JsonNode node, Class<T> type, String owner)
+            throws Exception {
+        try {
+            return objectMapper.readerFor(type).with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .readValue(node);
+        } catch (UnrecognizedPropertyException e) {
+            throw new Exception("Unknown member " + e.getPropertyName() + owner);
+        }
+    }
+
+    private static void update(ObjectMapper objectMapper, Object target, JsonNode node, String owner)
+            throws Exception {
+        try {
+            objectMapper.readerForUpdating(target).with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .readValue(node);
+        } catch (UnrecognizedPropertyException e) {
+            throw new Exception("Unknown member " + e.getPropertyName() + owner);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package fr.fullstack.shopapp.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import jakarta.persistence.EntityManager;
+
+public class NdjsonExporter {
+    // Same as hibernate.default_batch_fetch_size: the lazy collections of a chunk are loaded in one query
+    public static final int CHUNK_SIZE = 100;
+
+    /**
+     * Writes every entity of the stream as one JSON line. Entities are buffered by chunks so their
+     * collections are batch-loaded, then the persistence context is cleared to keep memory flat.
+     */
+    public static <T> void export(Stream<T> entities, ObjectWriter writer, OutputStream output, EntityManager em)
+            throws IOException {
+        List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+        Iterator<T> iterator = entities.iterator();
+        while (iterator.hasNext()) {
+            chunk.add(iterator.next());
+            if (chunk.size() == CHUNK_SIZE || !iterator.hasNext()) {
+                for (T entity : chunk) {
+                    output.write(writer.writeValueAsBytes(entity));
+                    output.write('\n');
+                }
+                output.flush();
+                chunk.clear();
+                em.clear();
+            }
+        }
+    }
+}
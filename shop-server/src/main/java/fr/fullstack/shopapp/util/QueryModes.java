@@ -0,0 +1,21 @@
+package fr.fullstack.shopapp.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * The list endpoints pick their mode (batch, cursor, search...) from a query parameter, and each
+ * mode mapping excludes the parameters of the other modes. A request combining several modes thus
+ * falls back on the plain list mapping, which rejects it instead of silently ignoring some of them.
+ */
+public class QueryModes {
+
+    public static void checkNotCombined(WebRequest request, String... modes) throws Exception {
+        List<String> present = Arrays.stream(modes).filter(mode -> request.getParameter(mode) != null).toList();
+        if (!present.isEmpty()) {
+            throw new Exception("Parameters " + String.join(", ", present) + " cannot be combined");
+        }
+    }
+}
@@ -1,24 +1,26 @@
 package fr.fullstack.shopapp.util;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Component;
 
-import fr.fullstack.shopapp.service.ElasticSearchService;
+import fr.fullstack.shopapp.service.ReindexService;
 
 @Component
 public class StartupIndexer implements ApplicationRunner {
 
     // ATTRIBUTES
 
-    private final ElasticSearchService indexService;
+    private final ReindexService indexService;
     @Value("${elasticsearch.reindex-on-startup}")
     private boolean shouldReindex;
 
     // CONSTRUCTOR
 
-    public StartupIndexer(ElasticSearchService indexService) {
+    public StartupIndexer(ReindexService indexService) {
         this.indexService = indexService;
     }
 
@@ -26,8 +28,12 @@ public class StartupIndexer implements ApplicationRunner {
 
     @Override
     public void run(ApplicationArguments args) throws Exception {
+        // The reindex runs in the background, the current index keeps serving searches meanwhile
         if (shouldReindex) {
-            indexService.reindexAll();
+            List<String> outdated = indexService.getOutdatedIndexes();
+            if (!outdated.isEmpty()) {
+                indexService.startReindex(outdated);
+            }
         }
     }
 
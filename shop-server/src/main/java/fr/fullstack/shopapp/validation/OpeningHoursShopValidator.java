@@ -1,6 +1,11 @@
 package fr.fullstack.shopapp.validation;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
 
 import fr.fullstack.shopapp.model.OpeningHoursShop;
 import jakarta.validation.ConstraintValidator;
@@ -8,28 +13,125 @@ import jakarta.validation.ConstraintValidatorContext;
 
 public class OpeningHoursShopValidator implements ConstraintValidator<NotOverlapping, List<OpeningHoursShop>> {
 
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+    private static final int SECONDS_PER_WEEK = 7 * SECONDS_PER_DAY;
+
     @Override
     public boolean isValid(List<OpeningHoursShop> value, ConstraintValidatorContext context) {
-        if (value.isEmpty()) {
+        if (value == null || value.isEmpty()) {
+            return true;
+        }
+
+        List<Conflict> conflicts = findConflicts(value);
+        if (conflicts.isEmpty()) {
             return true;
         }
-        List<OpeningHoursShop> openingHours = value;
 
+        // One violation per conflicting pair instead of a single generic message
+        if (context != null) {
+            context.disableDefaultConstraintViolation();
+            for (Conflict conflict : conflicts) {
+                context.buildConstraintViolationWithTemplate(context.getDefaultConstraintMessageTemplate()
+                        + ": " + describe(conflict.getFirst()) + " and " + describe(conflict.getSecond()))
+                        .addConstraintViolation();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns every pair of overlapping slots in O(n log n + number of conflicts).
+     * Slots are placed on the week as closed intervals, sorted by start and swept while keeping
+     * the slots still open. A slot closing before it opens ends on the next day, and a slot
+     * crossing the end of sunday continues on monday.
+     */
+    public static List<Conflict> findConflicts(List<OpeningHoursShop> openingHours) {
+        List<Segment> segments = new ArrayList<>();
         for (int i = 0; i < openingHours.size(); i++) {
-            for (int j = i + 1; j < openingHours.size(); j++) {
-                if (isOverlapping(openingHours.get(i), openingHours.get(j))) {
-                    return false;
+            OpeningHoursShop slot = openingHours.get(i);
+            if (slot == null || slot.getOpenAt() == null || slot.getCloseAt() == null) {
+                continue;
+            }
+
+            int start = (int) (slot.getDay() - 1) * SECONDS_PER_DAY + slot.getOpenAt().toSecondOfDay();
+            int duration = slot.getCloseAt().toSecondOfDay() - slot.getOpenAt().toSecondOfDay();
+            if (duration < 0) {
+                duration += SECONDS_PER_DAY;
+            }
+            int end = start + duration;
+
+            if (end < SECONDS_PER_WEEK) {
+                segments.add(new Segment(start, end, i));
+            } else {
+                segments.add(new Segment(start, SECONDS_PER_WEEK, i));
+                segments.add(new Segment(0, end - SECONDS_PER_WEEK, i));
+            }
+        }
+        segments.sort(Comparator.comparingInt(segment -> segment.start));
+
+        // Pairs are stored as (lower index, higher index) so a slot split in two is reported once
+        Set<Long> pairs = new LinkedHashSet<>();
+        PriorityQueue<Segment> open = new PriorityQueue<>(Comparator.comparingInt(segment -> segment.end));
+        for (Segment segment : segments) {
+            while (!open.isEmpty() && open.peek().end < segment.start) {
+                open.poll();
+            }
+            // Every segment still open overlaps the current one
+            for (Segment other : open) {
+                if (other.index != segment.index) {
+                    long first = Math.min(other.index, segment.index);
+                    long second = Math.max(other.index, segment.index);
+                    pairs.add(first << 32 | second);
                 }
             }
+            open.add(segment);
         }
-        return true;
+
+        List<Conflict> conflicts = new ArrayList<>(pairs.size());
+        for (long pair : pairs) {
+            conflicts.add(new Conflict(openingHours.get((int) (pair >>> 32)), openingHours.get((int) pair)));
+        }
+        return conflicts;
     }
 
     // TOOLS
 
-    private boolean isOverlapping(OpeningHoursShop i, OpeningHoursShop j) {
-        return (i.getDay() == j.getDay())
-                && !(i.getCloseAt().isBefore(j.getOpenAt()) || i.getOpenAt().isAfter(j.getCloseAt()));
+    private static String describe(OpeningHoursShop slot) {
+        return "day " + slot.getDay() + " " + slot.getOpenAt() + "-" + slot.getCloseAt();
+    }
+
+    public static class Conflict {
+        private final OpeningHoursShop first;
+
+        private final OpeningHoursShop second;
+
+        public Conflict(OpeningHoursShop first, OpeningHoursShop second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        public OpeningHoursShop getFirst() {
+            return first;
+        }
+
+        public OpeningHoursShop getSecond() {
+            return second;
+        }
+    }
+
+    private static class Segment {
+        private final int end;
+
+        private final int index;
+
+        private final int start;
+
+        private Segment(int start, int end, int index) {
+            this.start = start;
+            this.end = end;
+            this.index = index;
+        }
     }
 
 }
@@ -0,0 +1,122 @@
+package fr.fullstack.shopapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+import fr.fullstack.shopapp.model.Category;
+import fr.fullstack.shopapp.model.Product;
+import fr.fullstack.shopapp.model.Shop;
+
+class CategoryIndexTest {
+
+    private final CategoryIndex index = new CategoryIndex();
+
+    @BeforeEach
+    void indexProducts() {
+        // Shop 1: product 1 in categories 10 and 20, product 2 in 10, product 3 in 20
+        // Shop 2: product 4 in categories 10 and 20, product 5 without category
+        index.put(product(1, 1L, 10, 20), List.of());
+        index.put(product(2, 1L, 10), List.of());
+        index.put(product(3, 1L, 20), List.of());
+        index.put(product(4, 2L, 10, 20), List.of());
+        index.put(product(5, 2L), List.of());
+    }
+
+    @Test
+    void matchAllIntersectsTheCategories() {
+        assertThat(ids(index.findProducts(Optional.empty(), List.of(10L, 20L), true))).containsExactly(1L, 4L);
+    }
+
+    @Test
+    void matchAnyUnitesTheCategories() {
+        assertThat(ids(index.findProducts(Optional.empty(), List.of(10L, 20L), false)))
+                .containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void restrictsToTheShop() {
+        assertThat(ids(index.findProducts(Optional.of(1L), List.of(10L, 20L), true))).containsExactly(1L);
+        assertThat(ids(index.findProducts(Optional.of(1L), List.of(10L, 20L), false))).containsExactly(1L, 2L, 3L);
+        assertThat(ids(index.findProducts(Optional.of(3L), List.of(10L), false))).isEmpty();
+    }
+
+    @Test
+    void unknownCategoryEmptiesMatchAllOnly() {
+        assertThat(ids(index.findProducts(Optional.empty(), List.of(10L, 99L), true))).isEmpty();
+        assertThat(ids(index.findProducts(Optional.empty(), List.of(10L, 99L), false))).containsExactly(1L, 2L, 4L);
+    }
+
+    @Test
+    void lookupsDoNotModifyTheIndex() {
+        index.findProducts(Optional.of(2L), List.of(10L), true).addLong(42);
+
+        assertThat(ids(index.findProducts(Optional.empty(), List.of(10L), true))).containsExactly(1L, 2L, 4L);
+    }
+
+    @Test
+    void putDropsOnlyTheRemovedCategories() {
+        index.put(product(1, 1L, 20, 30), List.of(10L, 20L));
+
+        assertThat(ids(index.findProducts(Optional.empty(), List.of(10L), false))).containsExactly(2L, 4L);
+        assertThat(ids(index.findProducts(Optional.empty(), List.of(20L), false))).containsExactly(1L, 3L, 4L);
+        assertThat(ids(index.findProducts(Optional.empty(), List.of(30L), false))).containsExactly(1L);
+    }
+
+    @Test
+    void movesAProductToAnotherShop() {
+        index.removeFromShop(2, 1L);
+        index.put(product(2, 2L, 10), List.of(10L));
+
+        assertThat(ids(index.findProducts(Optional.of(1L), List.of(10L), false))).containsExactly(1L);
+        assertThat(ids(index.findProducts(Optional.of(2L), List.of(10L), false))).containsExactly(2L, 4L);
+    }
+
+    @Test
+    void removesProductsCategoriesAndShops() {
+        index.remove(1, 1L, List.of(10L, 20L));
+        assertThat(ids(index.findProducts(Optional.empty(), List.of(10L, 20L), false))).containsExactly(2L, 3L, 4L);
+
+        index.removeCategory(20);
+        assertThat(ids(index.findProducts(Optional.empty(), List.of(10L, 20L), true))).isEmpty();
+
+        index.removeShop(2);
+        assertThat(ids(index.findProducts(Optional.of(2L), List.of(10L), false))).isEmpty();
+    }
+
+    @Test
+    void pagesInAscendingOrder() {
+        Roaring64Bitmap products = Roaring64Bitmap.bitmapOf(3, 7, 8, 15, 42, 100, 1_000_000);
+
+        assertThat(CategoryIndex.page(products, 0, 3)).containsExactly(3L, 7L, 8L);
+        assertThat(CategoryIndex.page(products, 3, 3)).containsExactly(15L, 42L, 100L);
+        assertThat(CategoryIndex.page(products, 6, 3)).containsExactly(1_000_000L);
+        assertThat(CategoryIndex.page(products, 7, 3)).isEmpty();
+        assertThat(CategoryIndex.page(new Roaring64Bitmap(), 0, 3)).isEmpty();
+    }
+
+    private static List<Long> ids(Roaring64Bitmap products) {
+        return products.stream().boxed().toList();
+    }
+
+    private static Product product(long id, Long shopId, long... categoryIds) {
+        Product product = new Product();
+        product.setId(id);
+        if (shopId != null) {
+            Shop shop = new Shop();
+            shop.setId(shopId);
+            product.setShop(shop);
+        }
+        for (long categoryId : categoryIds) {
+            Category category = new Category();
+            category.setId(categoryId);
+            product.getCategories().add(category);
+        }
+        return product;
+    }
+}
@@ -0,0 +1,122 @@
+package fr.fullstack.shopapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import org.junit.jupiter.api.Test;
+
+import fr.fullstack.shopapp.model.OpeningHoursShop;
+import fr.fullstack.shopapp.model.Shop;
+
+class OpeningHoursIndexTest {
+
+    // 2024-01-01 is a monday
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final OpeningHoursIndex index = new OpeningHoursIndex();
+
+    @Test
+    void findsShopsOpenAtTheGivenTime() {
+        index.put(shop(1, slot(1, "09:00", "12:00")));
+        index.put(shop(2, slot(1, "14:00", "18:00")));
+        index.put(shop(3, slot(2, "09:00", "12:00")));
+
+        assertThat(index.findOpenShops(at(1, "10:15"))).containsExactly(1L);
+        assertThat(index.findOpenShops(at(1, "15:00"))).containsExactly(2L);
+        assertThat(index.findOpenShops(at(2, "10:15"))).containsExactly(3L);
+        assertThat(index.findOpenShops(at(1, "13:00"))).isEmpty();
+    }
+
+    @Test
+    void givesUpAboveTheLimit() {
+        index.put(shop(1, slot(1, "09:00", "12:00")));
+        index.put(shop(2, slot(1, "10:00", "11:00")));
+        index.put(shop(3, slot(1, "14:00", "18:00")));
+
+        assertThat(index.findOpenShops(at(1, "10:15"), 2)).hasValueSatisfying(
+                ids -> assertThat(ids).containsExactlyInAnyOrder(1L, 2L));
+        assertThat(index.findOpenShops(at(1, "10:15"), 1)).isEmpty();
+    }
+
+    @Test
+    void intervalsIncludeTheOpeningAndExcludeTheClosingMinute() {
+        index.put(shop(1, slot(1, "09:30", "10:00")));
+
+        assertThat(index.findOpenShops(at(1, "09:29"))).isEmpty();
+        assertThat(index.findOpenShops(at(1, "09:30"))).containsExactly(1L);
+        assertThat(index.findOpenShops(at(1, "09:59"))).containsExactly(1L);
+        assertThat(index.findOpenShops(at(1, "10:00"))).isEmpty();
+    }
+
+    @Test
+    void findsSlotsAcrossHourBuckets() {
+        index.put(shop(1, slot(1, "09:45", "11:15")));
+
+        assertThat(index.findOpenShops(at(1, "09:45"))).containsExactly(1L);
+        assertThat(index.findOpenShops(at(1, "10:00"))).containsExactly(1L);
+        assertThat(index.findOpenShops(at(1, "11:14"))).containsExactly(1L);
+        assertThat(index.findOpenShops(at(1, "11:15"))).isEmpty();
+    }
+
+    @Test
+    void findsOvernightSlotsOnTheNextDay() {
+        index.put(shop(1, slot(3, "22:00", "02:00")));
+
+        assertThat(index.findOpenShops(at(3, "23:30"))).containsExactly(1L);
+        assertThat(index.findOpenShops(at(4, "01:59"))).containsExactly(1L);
+        assertThat(index.findOpenShops(at(4, "02:00"))).isEmpty();
+    }
+
+    @Test
+    void findsSundaySlotsOnMonday() {
+        index.put(shop(1, slot(7, "23:00", "01:00")));
+
+        assertThat(index.findOpenShops(at(7, "23:59"))).containsExactly(1L);
+        assertThat(index.findOpenShops(at(1, "00:00"))).containsExactly(1L);
+        assertThat(index.findOpenShops(at(1, "01:00"))).isEmpty();
+    }
+
+    @Test
+    void findsOverlappingIntervalsOfTheSameShop() {
+        // The last interval starting before 15:00 is 10:00-11:00, the one covering it started earlier
+        index.put(shop(1, slot(1, "08:00", "18:00"), slot(1, "10:00", "11:00")));
+
+        assertThat(index.findOpenShops(at(1, "15:00"))).containsExactly(1L);
+    }
+
+    @Test
+    void replacesAndRemovesTheOpeningHoursOfAShop() {
+        index.put(shop(1, slot(1, "09:00", "12:00")));
+        index.put(shop(1, slot(1, "14:00", "18:00")));
+
+        assertThat(index.findOpenShops(at(1, "10:00"))).isEmpty();
+        assertThat(index.findOpenShops(at(1, "15:00"))).containsExactly(1L);
+
+        index.remove(1);
+
+        assertThat(index.findOpenShops(at(1, "15:00"))).isEmpty();
+    }
+
+    private static LocalDateTime at(int day, String time) {
+        return MONDAY.plusDays(day - 1).with(LocalTime.parse(time));
+    }
+
+    private static Shop shop(long id, OpeningHoursShop... openingHours) {
+        Shop shop = new Shop();
+        shop.setId(id);
+        for (OpeningHoursShop slot : openingHours) {
+            shop.getOpeningHours().add(slot);
+        }
+        return shop;
+    }
+
+    private static OpeningHoursShop slot(int day, String openAt, String closeAt) {
+        OpeningHoursShop slot = new OpeningHoursShop();
+        slot.setDay(day);
+        slot.setOpenAt(LocalTime.parse(openAt));
+        slot.setCloseAt(LocalTime.parse(closeAt));
+        return slot;
+    }
+}
@@ -0,0 +1,116 @@
+package fr.fullstack.shopapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import fr.fullstack.shopapp.dto.ImportReport;
+import fr.fullstack.shopapp.dto.ImportReport.ItemError;
+import fr.fullstack.shopapp.model.Product;
+import fr.fullstack.shopapp.repository.CategoryRepository;
+import fr.fullstack.shopapp.repository.ProductRepository;
+import fr.fullstack.shopapp.repository.ShopRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+
+@ExtendWith(MockitoExtension.class)
+class ProductServiceImportTest {
+
+    @Mock
+    private CacheService cacheService;
+
+    @Mock
+    private CategoryIndex categoryIndex;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private ElasticSearchService elasticSearchService;
+
+    @Mock
+    private EntityManager em;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private ProductService service;
+
+    @Mock
+    private ShopRepository shopRepository;
+
+    @Mock
+    private ShopService shopService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "validator",
+                Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(service, "importChunkSize", 2);
+    }
+
+    @Test
+    void reportsAnItemThatFailsToMapAndImportsTheFollowingOnes() {
+        ImportReport report = service.importProducts(ndjson(
+                product("1.50", "Pomme"),
+                product("2.00", "Poire"),
+                "{\"price\": \"cher\", \"localizedProducts\": [{\"locale\": \"FR\", \"name\": \"Prune\"}]}",
+                product("3.00", "Figue"),
+                product("4.00", "Kiwi")));
+
+        assertThat(report.getImported()).isEqualTo(4);
+        assertThat(report.getErrors()).extracting(ItemError::getIndex).containsExactly(2);
+        assertThat(report.getErrors().get(0).getMessage()).startsWith("Malformed product");
+        verify(em, times(4)).persist(any(Product.class));
+    }
+
+    @Test
+    void reportsInvalidItemsWithTheirIndex() {
+        ImportReport report = service.importProducts(ndjson(
+                product("1.50", "Pomme"),
+                "{\"price\": 1, \"localizedProducts\": [{\"locale\": \"EN\", \"name\": \"Pear\"}]}",
+                product("3.00", "Figue")));
+
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(ItemError::getIndex).containsExactly(1);
+    }
+
+    @Test
+    void stopsAtASyntaxError() {
+        ImportReport report = service.importProducts(ndjson(
+                product("1.50", "Pomme"),
+                "{\"price\": 2,, }",
+                product("3.00", "Figue")));
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getErrors()).extracting(ItemError::getIndex).containsExactly(1);
+    }
+
+    private static ByteArrayInputStream ndjson(String... items) {
+        return new ByteArrayInputStream(String.join("\n", items).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String product(String price, String name) {
+        return "{\"price\": " + price + ", \"localizedProducts\": [{\"locale\": \"FR\", \"name\": \"" + name + "\"}]}";
+    }
+}
@@ -0,0 +1,48 @@
+package fr.fullstack.shopapp.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import fr.fullstack.shopapp.exception.VersionConflictException;
+
+class EtagsTest {
+
+    @Test
+    void buildsQuotedEtags() {
+        assertThat(Etags.of(3L)).isEqualTo("\"3\"");
+        assertThat(Etags.of(3L, 7L, 12L, 2L)).isEqualTo("\"3-7-12-2\"");
+    }
+
+    @Test
+    void acceptsTheCurrentEtag() throws Exception {
+        Optional<String> ifMatch = Etags.parseIfMatch(Optional.of(" \"3-7-12-2\" "));
+
+        assertThatCode(() -> Etags.checkEtag("Product", 1, "\"3-7-12-2\"", ifMatch)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void rejectsAStaleShopOrCategoryPart() throws Exception {
+        // Same product version, the shop changed since the client read the product
+        Optional<String> ifMatch = Etags.parseIfMatch(Optional.of("\"3-7-12-2\""));
+
+        assertThatThrownBy(() -> Etags.checkEtag("Product", 1, "\"3-8-12-2\"", ifMatch))
+                .isInstanceOf(VersionConflictException.class);
+    }
+
+    @Test
+    void anyEtagOrNoneSkipsTheCheck() throws Exception {
+        assertThat(Etags.parseIfMatch(Optional.empty())).isEmpty();
+        assertThat(Etags.parseIfMatch(Optional.of("*"))).isEmpty();
+    }
+
+    @Test
+    void rejectsUnquotedEtags() {
+        assertThatThrownBy(() -> Etags.parseIfMatch(Optional.of("3"))).hasMessage("Invalid If-Match 3");
+        assertThatThrownBy(() -> Etags.parseIfMatch(Optional.of("W/\"3\""))).hasMessage("Invalid If-Match W/\"3\"");
+    }
+}
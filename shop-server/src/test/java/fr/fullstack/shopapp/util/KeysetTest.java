@@ -0,0 +1,103 @@
+package fr.fullstack.shopapp.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import fr.fullstack.shopapp.model.Product;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+class KeysetTest {
+
+    @Test
+    void decodesWhatWasEncoded() throws Exception {
+        Keyset keyset = Keyset.decode(Keyset.encode("priceCents", 1999L, 42));
+
+        assertThat(keyset.getField()).isEqualTo("priceCents");
+        assertThat(keyset.getValue()).isEqualTo("1999");
+        assertThat(keyset.getId()).isEqualTo(42);
+    }
+
+    @Test
+    void keepsValuesContainingTheSeparator() throws Exception {
+        Keyset keyset = Keyset.decode(Keyset.encode("name", "Fruits | Légumes", 7));
+
+        assertThat(keyset.getValue()).isEqualTo("Fruits | Légumes");
+        assertThat(keyset.getId()).isEqualTo(7);
+    }
+
+    @Test
+    void tiedValuesGiveDistinctCursors() throws Exception {
+        String first = Keyset.encode("priceCents", 500L, 3);
+        String second = Keyset.encode("priceCents", 500L, 4);
+
+        assertThat(first).isNotEqualTo(second);
+        assertThat(Keyset.decode(first).getId()).isEqualTo(3);
+        assertThat(Keyset.decode(second).getId()).isEqualTo(4);
+    }
+
+    @Test
+    void cursorsAreUrlSafe() {
+        assertThat(Keyset.encode("name", "??>>~~", Long.MAX_VALUE)).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void rejectsInvalidCursors() {
+        assertThatThrownBy(() -> Keyset.decode("not a cursor")).hasMessage("Invalid cursor not a cursor");
+        assertThatThrownBy(() -> Keyset.decode(Keyset.encode("id", 1, 2).substring(0, 3)))
+                .hasMessageStartingWith("Invalid cursor");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void breaksTiesOnTheId() {
+        Root<Product> root = mock(Root.class);
+        CriteriaQuery<?> query = mock(CriteriaQuery.class);
+        CriteriaBuilder cb = mock(CriteriaBuilder.class);
+        Path<Long> price = mock(Path.class);
+        Path<Long> id = mock(Path.class);
+        when(root.<Long>get("priceCents")).thenReturn(price);
+        when(root.<Long>get("id")).thenReturn(id);
+        Predicate after = mock(Predicate.class);
+        Predicate tie = mock(Predicate.class);
+        Predicate nextId = mock(Predicate.class);
+        Predicate tieAndNextId = mock(Predicate.class);
+        Predicate result = mock(Predicate.class);
+        when(cb.greaterThan(price, 500L)).thenReturn(after);
+        when(cb.equal(price, 500L)).thenReturn(tie);
+        when(cb.greaterThan(id, 3L)).thenReturn(nextId);
+        when(cb.and(tie, nextId)).thenReturn(tieAndNextId);
+        when(cb.or(after, tieAndNextId)).thenReturn(result);
+
+        Predicate predicate = Keyset.<Product>after("priceCents", Sort.Direction.ASC, 500L, 3)
+                .toPredicate(root, query, cb);
+
+        // price > 500 OR (price = 500 AND id > 3)
+        assertThat(predicate).isSameAs(result);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void descendingIdCursorOnlyComparesTheId() {
+        Root<Product> root = mock(Root.class);
+        CriteriaQuery<?> query = mock(CriteriaQuery.class);
+        CriteriaBuilder cb = mock(CriteriaBuilder.class);
+        Path<Long> id = mock(Path.class);
+        when(root.<Long>get("id")).thenReturn(id);
+
+        Keyset.<Product>after("id", Sort.Direction.DESC, 3L, 3).toPredicate(root, query, cb);
+
+        verify(cb).lessThan(id, 3L);
+        verifyNoMoreInteractions(cb);
+    }
+}
@@ -0,0 +1,142 @@
+package fr.fullstack.shopapp.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import fr.fullstack.shopapp.model.LocalizedProduct;
+import fr.fullstack.shopapp.model.Product;
+
+class MergePatchTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void appliesOnlyThePresentMembers() throws Exception {
+        LocalizedProduct translation = translation(1, "FR", "Pomme");
+        translation.setDescription("Rouge");
+
+        MergePatch.applyFields(objectMapper, translation, json("{\"name\": \"Poire\"}"), Set.of());
+
+        assertThat(translation.getName()).isEqualTo("Poire");
+        assertThat(translation.getDescription()).isEqualTo("Rouge");
+        assertThat(translation.getLocale()).isEqualTo("FR");
+    }
+
+    @Test
+    void nullMemberClearsTheField() throws Exception {
+        LocalizedProduct translation = translation(1, "FR", "Pomme");
+        translation.setDescription("Rouge");
+
+        MergePatch.applyFields(objectMapper, translation, json("{\"description\": null}"), Set.of());
+
+        assertThat(translation.getDescription()).isNull();
+    }
+
+    @Test
+    void skipsTheExcludedMembers() throws Exception {
+        Product product = new Product();
+        product.setId(5);
+
+        MergePatch.applyFields(objectMapper, product, json("{\"id\": 9, \"version\": 3, \"price\": 2.5}"),
+                Set.of("id", "version"));
+
+        assertThat(product.getId()).isEqualTo(5);
+        assertThat(product.getVersion()).isZero();
+        assertThat(product.getPrice()).isEqualByComparingTo(new BigDecimal("2.50"));
+    }
+
+    @Test
+    void rejectsUnknownMembers() {
+        assertThatThrownBy(() -> MergePatch.applyFields(objectMapper, new Product(), json("{\"prise\": 2}"), Set.of()))
+                .hasMessage("Unknown member prise");
+    }
+
+    @Test
+    void rejectsPatchesThatAreNotObjects() {
+        assertThatThrownBy(() -> MergePatch.applyFields(objectMapper, new Product(), json("[]"), Set.of()))
+                .hasMessage("The patch must be a JSON object");
+    }
+
+    @Test
+    void patchesChildrenInPlaceAddsNewOnesAndRemovesLeftOutOnes() throws Exception {
+        LocalizedProduct french = translation(1, "FR", "Pomme");
+        LocalizedProduct english = translation(2, "EN", "Apple");
+        List<LocalizedProduct> translations = new ArrayList<>(List.of(french, english));
+
+        MergePatch.patchCollection(objectMapper, translations,
+                json("[{\"id\": 1, \"name\": \"Poire\"}, {\"locale\": \"EN\", \"name\": \"Pear\"}]"),
+                LocalizedProduct.class, LocalizedProduct::getId, "localized product");
+
+        assertThat(translations).hasSize(2);
+        assertThat(translations.get(0)).isSameAs(french);
+        assertThat(french.getName()).isEqualTo("Poire");
+        assertThat(french.getLocale()).isEqualTo("FR");
+        assertThat(translations.get(1)).isNotSameAs(english);
+        assertThat(translations.get(1).getName()).isEqualTo("Pear");
+    }
+
+    @Test
+    void nullClearsTheCollection() throws Exception {
+        List<LocalizedProduct> translations = new ArrayList<>(List.of(translation(1, "FR", "Pomme")));
+
+        MergePatch.patchCollection(objectMapper, translations, json("null"),
+                LocalizedProduct.class, LocalizedProduct::getId, "localized product");
+
+        assertThat(translations).isEmpty();
+    }
+
+    @Test
+    void rejectsUnknownChildren() {
+        List<LocalizedProduct> translations = new ArrayList<>(List.of(translation(1, "FR", "Pomme")));
+
+        assertThatThrownBy(() -> MergePatch.patchCollection(objectMapper, translations, json("[{\"id\": 7}]"),
+                LocalizedProduct.class, LocalizedProduct::getId, "localized product"))
+                .hasMessage("Unknown localized product with id 7");
+        assertThat(translations).hasSize(1);
+    }
+
+    @Test
+    void rejectsUnknownMembersOfChildren() {
+        List<LocalizedProduct> translations = new ArrayList<>(List.of(translation(1, "FR", "Pomme")));
+
+        assertThatThrownBy(() -> MergePatch.patchCollection(objectMapper, translations,
+                json("[{\"id\": 1, \"nom\": \"Poire\"}]"),
+                LocalizedProduct.class, LocalizedProduct::getId, "localized product"))
+                .hasMessage("Unknown member nom of localized product");
+    }
+
+    @Test
+    void rejectsValuesThatAreNotArraysOfObjects() {
+        List<LocalizedProduct> translations = new ArrayList<>();
+
+        assertThatThrownBy(() -> MergePatch.patchCollection(objectMapper, translations, json("{\"id\": 1}"),
+                LocalizedProduct.class, LocalizedProduct::getId, "localized product"))
+                .hasMessage("localized product must be an array");
+        assertThatThrownBy(() -> MergePatch.patchCollection(objectMapper, translations, json("[1]"),
+                LocalizedProduct.class, LocalizedProduct::getId, "localized product"))
+                .hasMessage("localized product must be an array of objects");
+    }
+
+    private JsonNode json(String value) throws Exception {
+        return objectMapper.readTree(value);
+    }
+
+    private static LocalizedProduct translation(long id, String locale, String name) {
+        LocalizedProduct translation = new LocalizedProduct();
+        translation.setId(id);
+        translation.setLocale(locale);
+        translation.setName(name);
+        return translation;
+    }
+}
@@ -0,0 +1,107 @@
+package fr.fullstack.shopapp.validation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import fr.fullstack.shopapp.model.OpeningHoursShop;
+import fr.fullstack.shopapp.validation.OpeningHoursShopValidator.Conflict;
+
+class OpeningHoursShopValidatorTest {
+
+    private final OpeningHoursShopValidator validator = new OpeningHoursShopValidator();
+
+    @Test
+    void acceptsSlotsThatDoNotOverlap() {
+        List<OpeningHoursShop> openingHours = List.of(
+                slot(1, "09:00", "12:00"), slot(1, "14:00", "18:00"), slot(2, "09:00", "12:00"));
+
+        assertThat(OpeningHoursShopValidator.findConflicts(openingHours)).isEmpty();
+        assertThat(validator.isValid(openingHours, null)).isTrue();
+    }
+
+    @Test
+    void acceptsNoSlots() {
+        assertThat(validator.isValid(List.of(), null)).isTrue();
+        assertThat(validator.isValid(null, null)).isTrue();
+    }
+
+    @Test
+    void reportsOverlappingSlotsOfTheSameDay() {
+        OpeningHoursShop morning = slot(3, "09:00", "12:00");
+        OpeningHoursShop noon = slot(3, "11:00", "14:00");
+
+        List<Conflict> conflicts = OpeningHoursShopValidator.findConflicts(List.of(morning, noon));
+
+        assertThat(conflicts).hasSize(1);
+        assertThat(conflicts.get(0).getFirst()).isSameAs(morning);
+        assertThat(conflicts.get(0).getSecond()).isSameAs(noon);
+        assertThat(validator.isValid(List.of(morning, noon), null)).isFalse();
+    }
+
+    @Test
+    void reportsTouchingSlots() {
+        // Slots are closed intervals, a slot closing when the next one opens overlaps it
+        List<OpeningHoursShop> openingHours = List.of(slot(1, "09:00", "12:00"), slot(1, "12:00", "14:00"));
+
+        assertThat(OpeningHoursShopValidator.findConflicts(openingHours)).hasSize(1);
+    }
+
+    @Test
+    void reportsEveryConflictingPairOnce() {
+        OpeningHoursShop day = slot(5, "08:00", "20:00");
+        OpeningHoursShop morning = slot(5, "09:00", "11:00");
+        OpeningHoursShop evening = slot(5, "18:00", "19:00");
+
+        List<Conflict> conflicts = OpeningHoursShopValidator.findConflicts(List.of(day, morning, evening));
+
+        assertThat(conflicts).extracting(Conflict::getFirst).containsOnly(day);
+        assertThat(conflicts).extracting(Conflict::getSecond).containsExactlyInAnyOrder(morning, evening);
+    }
+
+    @Test
+    void reportsOvernightSlotOverlappingTheNextDay() {
+        List<OpeningHoursShop> openingHours = List.of(slot(2, "22:00", "02:00"), slot(3, "01:00", "05:00"));
+
+        assertThat(OpeningHoursShopValidator.findConflicts(openingHours)).hasSize(1);
+    }
+
+    @Test
+    void reportsSundaySlotWrappingOntoMonday() {
+        OpeningHoursShop sunday = slot(7, "22:00", "03:00");
+        OpeningHoursShop monday = slot(1, "02:00", "06:00");
+
+        List<Conflict> conflicts = OpeningHoursShopValidator.findConflicts(List.of(sunday, monday));
+
+        // The sunday slot is split in two segments but the pair is reported once
+        assertThat(conflicts).hasSize(1);
+        assertThat(conflicts.get(0).getFirst()).isSameAs(sunday);
+        assertThat(conflicts.get(0).getSecond()).isSameAs(monday);
+    }
+
+    @Test
+    void acceptsSundaySlotEndingBeforeMondayOpens() {
+        List<OpeningHoursShop> openingHours = List.of(slot(7, "22:00", "01:00"), slot(1, "02:00", "06:00"));
+
+        assertThat(OpeningHoursShopValidator.findConflicts(openingHours)).isEmpty();
+    }
+
+    @Test
+    void ignoresIncompleteSlots() {
+        OpeningHoursShop incomplete = new OpeningHoursShop();
+        incomplete.setDay(1);
+
+        assertThat(OpeningHoursShopValidator.findConflicts(List.of(incomplete, slot(1, "09:00", "12:00")))).isEmpty();
+    }
+
+    private static OpeningHoursShop slot(int day, String openAt, String closeAt) {
+        OpeningHoursShop slot = new OpeningHoursShop();
+        slot.setDay(day);
+        slot.setOpenAt(LocalTime.parse(openAt));
+        slot.setCloseAt(LocalTime.parse(closeAt));
+        return slot;
+    }
+}